@@ -36,6 +36,7 @@ public final class AlertReporter {
 
     public void reportAlert(
             String deviceId,
+            String cameraId,
             long timestampMs,
             float confidence,
             int consecutiveHits,
@@ -62,12 +63,16 @@ public final class AlertReporter {
             return;
         }
 
-        MultipartBody requestBody = new MultipartBody.Builder()
+        MultipartBody.Builder form = new MultipartBody.Builder()
                 .setType(MultipartBody.FORM)
                 .addFormDataPart("device_id", deviceId)
                 .addFormDataPart("timestamp_ms", Long.toString(timestampMs))
                 .addFormDataPart("confidence", Float.toString(confidence))
-                .addFormDataPart("consecutive_hits", Integer.toString(consecutiveHits))
+                .addFormDataPart("consecutive_hits", Integer.toString(consecutiveHits));
+        if (cameraId != null && !cameraId.trim().isEmpty()) {
+            form.addFormDataPart("camera_id", cameraId);
+        }
+        MultipartBody requestBody = form
                 .addFormDataPart(
                         "image",
                         timestampMs + ".jpg",
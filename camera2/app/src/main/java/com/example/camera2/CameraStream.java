@@ -0,0 +1,261 @@
+package com.example.camera2;
+
+import android.graphics.Bitmap;
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CaptureRequest;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Size;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * One field of view fed into the shared inference engine: either the on-screen preview of the
+ * primary camera, or an off-screen {@link ImageReader} attached to another camera or to a
+ * physical sub-camera of a logical multi-camera. Each stream keeps its own detector state.
+ *
+ * In low-light mode incoming frames are also added to a per-stream {@link FrameStacker}, at most
+ * one per long exposure, and {@link #grabFrame()} returns the stacked frame instead of a single
+ * noisy one.
+ */
+final class CameraStream {
+    private static final String TAG = "CameraStream";
+    private static final int MAX_STACK_FRAMES = 8;
+    // Sub-streams that share a 30 fps request would otherwise convert and stack every frame,
+    // unmetered, on the inference thread.
+    static final long STACK_FRAME_INTERVAL_MS = NightExposure.NIGHT_EXPOSURE_NS / 1_000_000L;
+
+    final String cameraId;
+    final DetectorState detectorState = new DetectorState();
+
+    private final ImageReader reader;
+    private DetectorStateStore detectorStateStore;
+    private Image latestImage;
+    private int[] argb;
+    private volatile boolean stacking;
+    private volatile FrameStacker stacker;
+    private int[] stackArgb;
+    private long lastStackMs;
+
+    // Set only for streams that own their camera device (concurrent cameras).
+    CameraDevice device;
+    CameraCaptureSession session;
+    CaptureRequest.Builder requestBuilder;
+
+    private CameraStream(String cameraId, ImageReader reader) {
+        this.cameraId = cameraId;
+        this.reader = reader;
+    }
+
+    /** Stream whose frames come from the preview {@code TextureView}. */
+    static CameraStream forPreview(String cameraId) {
+        return new CameraStream(cameraId, null);
+    }
+
+    /** Off-screen stream; the newest frame is retained on {@code handler}'s thread. */
+    static CameraStream forReader(String cameraId, Size size, Handler handler) {
+        ImageReader reader = ImageReader.newInstance(size.getWidth(), size.getHeight(), ImageFormat.YUV_420_888, 3);
+        final CameraStream stream = new CameraStream(cameraId, reader);
+        reader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(ImageReader r) {
+                stream.retainLatest(r);
+            }
+        }, handler);
+        return stream;
+    }
+
+    boolean isPreview() {
+        return reader == null;
+    }
+
+    ImageReader getReader() {
+        return reader;
+    }
+
+    /**
+     * Opens the per-camera state file and restores it. Hit streaks older than
+     * {@code resumeWindowSamples} sampling periods are dropped; cooldown and score history are
+     * kept. The period is the longer of {@code currentPeriodMs} and the one persisted with the
+     * state, since the scheduler may have been stretching it before the restart.
+     */
+    void attachStateStore(File dir, long currentPeriodMs, int resumeWindowSamples) {
+        try {
+            detectorStateStore = new DetectorStateStore(new File(dir, "detector_state_" + cameraId + ".bin"));
+        } catch (IOException e) {
+            Log.w(TAG, "Detector state for camera " + cameraId + " will not survive restarts", e);
+            return;
+        }
+        if (!detectorStateStore.load(detectorState)) {
+            return;
+        }
+        long ageMs = System.currentTimeMillis() - detectorState.getLastUpdateMs();
+        long maxResumeAgeMs = Math.max(currentPeriodMs, detectorState.getSamplePeriodMs()) * resumeWindowSamples;
+        if (ageMs < 0 || ageMs > maxResumeAgeMs) {
+            detectorState.resetHits();
+        }
+        Log.i(TAG, "Restored detector state for camera " + cameraId
+                + ": hits=" + detectorState.getConsecutiveFireHits()
+                + " history=" + detectorState.getHistoryCount() + " ageMs=" + ageMs);
+    }
+
+    boolean isStacking() {
+        return stacking;
+    }
+
+    void setStacking(boolean enabled) {
+        stacking = enabled;
+        FrameStacker s = stacker;
+        if (!enabled && s != null) {
+            s.reset();
+        }
+    }
+
+    /** Adds one frame to the low-light stack, (re)allocating it if the frame size changed. */
+    void addStackFrame(int[] frame, int width, int height) {
+        FrameStacker s = stacker;
+        if (s == null || s.getWidth() != width || s.getHeight() != height) {
+            s = new FrameStacker(width, height, MAX_STACK_FRAMES);
+            stacker = s;
+        }
+        s.add(frame);
+    }
+
+    void persistState(boolean forceToStorage) {
+        DetectorStateStore store = detectorStateStore;
+        if (store == null) {
+            return;
+        }
+        store.save(detectorState);
+        if (forceToStorage) {
+            store.flush();
+        }
+    }
+
+    /**
+     * Returns the stacked frame when stacking, otherwise converts the newest retained frame.
+     * Must run on the reader's handler thread.
+     */
+    Bitmap grabFrame() {
+        if (stacking) {
+            Bitmap stacked = takeStackedFrame();
+            if (stacked != null) {
+                return stacked;
+            }
+        }
+        Image image = latestImage;
+        if (image == null) {
+            return null;
+        }
+        latestImage = null;
+        try {
+            toArgb(image);
+            return Bitmap.createBitmap(argb, image.getWidth(), image.getHeight(), Bitmap.Config.ARGB_8888);
+        } finally {
+            image.close();
+        }
+    }
+
+    private Bitmap takeStackedFrame() {
+        FrameStacker s = stacker;
+        if (s == null) {
+            return null;
+        }
+        int width = s.getWidth();
+        int height = s.getHeight();
+        if (stackArgb == null || stackArgb.length != width * height) {
+            stackArgb = new int[width * height];
+        }
+        // Each tick consumes its own frames so consecutive hits come from independent stacks.
+        synchronized (s) {
+            if (!s.averageInto(stackArgb)) {
+                return null;
+            }
+            s.reset();
+        }
+        return Bitmap.createBitmap(stackArgb, width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private void toArgb(Image image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (argb == null || argb.length != width * height) {
+            argb = new int[width * height];
+        }
+        Image.Plane[] planes = image.getPlanes();
+        YuvConverter.yuv420ToArgb(
+                planes[0].getBuffer(),
+                planes[0].getRowStride(),
+                planes[1].getBuffer(),
+                planes[2].getBuffer(),
+                planes[1].getRowStride(),
+                planes[1].getPixelStride(),
+                width,
+                height,
+                argb
+        );
+    }
+
+    /**
+     * Closes the camera side of the stream. The reader and detector state stay open until
+     * {@link #release()}, so a frame already queued on the inference thread can still be read.
+     */
+    void closeCamera() {
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+        if (device != null) {
+            device.close();
+            device = null;
+        }
+    }
+
+    /** Must run on the reader's handler thread, or after that thread has stopped. */
+    void release() {
+        if (latestImage != null) {
+            latestImage.close();
+            latestImage = null;
+        }
+        if (reader != null) {
+            reader.close();
+        }
+        stacker = null;
+        if (detectorStateStore != null) {
+            try {
+                detectorStateStore.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close detector state for camera " + cameraId, e);
+            }
+            detectorStateStore = null;
+        }
+    }
+
+    private void retainLatest(ImageReader r) {
+        Image next;
+        try {
+            next = r.acquireLatestImage();
+        } catch (IllegalStateException e) {
+            return;
+        }
+        if (next == null) {
+            return;
+        }
+        long nowMs = SystemClock.elapsedRealtime();
+        if (stacking && nowMs - lastStackMs >= STACK_FRAME_INTERVAL_MS) {
+            lastStackMs = nowMs;
+            toArgb(next);
+            addStackFrame(argb, next.getWidth(), next.getHeight());
+        }
+        if (latestImage != null) {
+            latestImage.close();
+        }
+        latestImage = next;
+    }
+}
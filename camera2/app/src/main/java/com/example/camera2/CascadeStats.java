@@ -0,0 +1,73 @@
+package com.example.camera2;
+
+/**
+ * Running totals for the two-stage detector: how many frames were escalated from the tiny
+ * stage-one model to the full model, and what a frame costs on average. Costs are whole-frame
+ * wall time, so escalated frames include the stage-one pass that triggered them.
+ *
+ * <p>Frames the night gate drops never reach stage one, so they are counted on their own and
+ * left out of the escalation rate and costs.
+ */
+public final class CascadeStats {
+    /** Which gate decided a frame. */
+    public enum Outcome {
+        /** Dark frame with no hot spot; neither model ran. */
+        NIGHT_GATED,
+        /** Stage one ran and ruled out fire. */
+        STAGE_ONE_REJECTED,
+        /** Stage one ran and handed the frame to the full model. */
+        ESCALATED
+    }
+
+    private long nightGatedFrames;
+    private long stageOneFrames;
+    private long escalatedFrames;
+    private long stageOneMs;
+    private long escalatedMs;
+
+    public synchronized void record(Outcome outcome, long frameMs) {
+        switch (outcome) {
+            case NIGHT_GATED:
+                nightGatedFrames += 1;
+                break;
+            case ESCALATED:
+                escalatedFrames += 1;
+                escalatedMs += frameMs;
+                // fall through: escalated frames ran stage one too
+            case STAGE_ONE_REJECTED:
+                stageOneFrames += 1;
+                stageOneMs += frameMs;
+                break;
+        }
+    }
+
+    /** All recorded frames, night-gated ones included. */
+    public synchronized long getFrames() {
+        return nightGatedFrames + stageOneFrames;
+    }
+
+    public synchronized long getNightGatedFrames() {
+        return nightGatedFrames;
+    }
+
+    /** Fraction of stage-one frames that went on to the full model. */
+    public synchronized float escalatedFraction() {
+        return stageOneFrames == 0 ? 0f : (float) escalatedFrames / stageOneFrames;
+    }
+
+    /** Average cost of a frame that ran stage one, or 0 before the first one. */
+    public synchronized float averageFrameMs() {
+        return stageOneFrames == 0 ? 0f : (float) stageOneMs / stageOneFrames;
+    }
+
+    /** Average cost of a frame that ran the full model, or 0 before the first one. */
+    public synchronized float averageEscalatedFrameMs() {
+        return escalatedFrames == 0 ? 0f : (float) escalatedMs / escalatedFrames;
+    }
+
+    public synchronized String summary() {
+        return String.format("escalated=%.1f%% of %d, avg=%.1fms (full %.1fms), night-gated=%d",
+                escalatedFraction() * 100f, stageOneFrames, averageFrameMs(), averageEscalatedFrameMs(),
+                nightGatedFrames);
+    }
+}
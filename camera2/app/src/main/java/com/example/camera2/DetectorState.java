@@ -0,0 +1,120 @@
+package com.example.camera2;
+
+/**
+ * Mutable detection state for one camera stream: the consecutive-hit aggregator,
+ * the alert cooldown timestamp and a rolling history of recent full-model fire scores.
+ *
+ * Kept free of Android types so it can be persisted by {@link DetectorStateStore}
+ * and exercised on the JVM.
+ */
+public final class DetectorState {
+    public static final int SCORE_HISTORY_SIZE = 32;
+
+    private int consecutiveFireHits;
+    private long lastAlertUploadMs;
+    private long lastUpdateMs;
+    private long samplePeriodMs;
+    private final float[] scoreHistory = new float[SCORE_HISTORY_SIZE];
+    private int historyHead;
+    private int historyCount;
+
+    /** Records one classified frame and returns the updated consecutive hit count. */
+    public synchronized int recordScore(float fireProb, boolean isFire, long nowMs) {
+        if (isFire) {
+            consecutiveFireHits += 1;
+        } else {
+            consecutiveFireHits = 0;
+        }
+        scoreHistory[historyHead] = fireProb;
+        historyHead = (historyHead + 1) % SCORE_HISTORY_SIZE;
+        if (historyCount < SCORE_HISTORY_SIZE) {
+            historyCount += 1;
+        }
+        lastUpdateMs = nowMs;
+        return consecutiveFireHits;
+    }
+
+    /**
+     * Records a frame the model did not score, e.g. one gated out at night: it breaks the hit
+     * streak but leaves the score history alone. Returns the (zero) hit count.
+     */
+    public synchronized int recordUnscored(long nowMs) {
+        consecutiveFireHits = 0;
+        lastUpdateMs = nowMs;
+        return consecutiveFireHits;
+    }
+
+    public synchronized void markAlertUploaded(long nowMs) {
+        lastAlertUploadMs = nowMs;
+        consecutiveFireHits = 0;
+    }
+
+    public synchronized void resetHits() {
+        consecutiveFireHits = 0;
+    }
+
+    public synchronized int getConsecutiveFireHits() {
+        return consecutiveFireHits;
+    }
+
+    public synchronized long getLastAlertUploadMs() {
+        return lastAlertUploadMs;
+    }
+
+    public synchronized long getLastUpdateMs() {
+        return lastUpdateMs;
+    }
+
+    /** Interval at which the scheduler samples this stream; bounds how old a resumable streak may be. */
+    public synchronized void setSamplePeriodMs(long samplePeriodMs) {
+        this.samplePeriodMs = samplePeriodMs;
+    }
+
+    public synchronized long getSamplePeriodMs() {
+        return samplePeriodMs;
+    }
+
+    public synchronized int getHistoryCount() {
+        return historyCount;
+    }
+
+    public synchronized float averageScore() {
+        if (historyCount == 0) {
+            return 0f;
+        }
+        float sum = 0f;
+        for (int i = 0; i < historyCount; i++) {
+            sum += scoreHistory[i];
+        }
+        return sum / historyCount;
+    }
+
+    /** Copies the score history oldest-first into {@code out}; returns the number of entries. */
+    public synchronized int copyScoreHistory(float[] out) {
+        int start = (historyHead - historyCount + SCORE_HISTORY_SIZE) % SCORE_HISTORY_SIZE;
+        int n = Math.min(historyCount, out.length);
+        for (int i = 0; i < n; i++) {
+            out[i] = scoreHistory[(start + i) % SCORE_HISTORY_SIZE];
+        }
+        return n;
+    }
+
+    synchronized void restore(
+            int consecutiveFireHits,
+            long lastAlertUploadMs,
+            long lastUpdateMs,
+            long samplePeriodMs,
+            float[] history,
+            int historyCount
+    ) {
+        this.consecutiveFireHits = Math.max(0, consecutiveFireHits);
+        this.lastAlertUploadMs = lastAlertUploadMs;
+        this.lastUpdateMs = lastUpdateMs;
+        this.samplePeriodMs = Math.max(0, samplePeriodMs);
+        this.historyCount = Math.max(0, Math.min(historyCount, SCORE_HISTORY_SIZE));
+        for (int i = 0; i < this.historyCount; i++) {
+            scoreHistory[i] = history[i];
+        }
+        this.historyHead = this.historyCount % SCORE_HISTORY_SIZE;
+    }
+}
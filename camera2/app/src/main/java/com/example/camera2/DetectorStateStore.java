@@ -0,0 +1,165 @@
+package com.example.camera2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Persists a {@link DetectorState} in a small memory-mapped file so detection survives
+ * process death.
+ *
+ * The file holds two fixed-size slots written alternately, each tagged with a generation
+ * counter and a CRC32. A torn write can only damage the slot being written, so the other
+ * slot is always a valid fallback. Saves only touch the mapped pages; the kernel writes
+ * them back lazily, and {@link #flush()} forces them to storage only at points that matter
+ * (alerts, pause), which keeps per-frame saves from wearing out flash.
+ */
+public final class DetectorStateStore {
+    private static final int MAGIC = 0x534E544C; // "SNTL"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+
+    // Slot layout: generation(8) crc(4) | hits(4) lastAlertUploadMs(8) lastUpdateMs(8) samplePeriodMs(8)
+    // historyCount(4) history
+    private static final int PAYLOAD_SIZE = 4 + 8 + 8 + 8 + 4 + 4 * DetectorState.SCORE_HISTORY_SIZE;
+    private static final int SLOT_SIZE = 8 + 4 + PAYLOAD_SIZE;
+    private static final int FILE_SIZE = HEADER_SIZE + 2 * SLOT_SIZE;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final ByteBuffer scratch = ByteBuffer.allocate(8 + PAYLOAD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final float[] historyScratch = new float[DetectorState.SCORE_HISTORY_SIZE];
+    private final CRC32 crc = new CRC32();
+    private long generation;
+
+    public DetectorStateStore(File path) throws IOException {
+        File parent = path.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory: " + parent.getAbsolutePath());
+        }
+        file = new RandomAccessFile(path, "rw");
+        try {
+            boolean fresh = file.length() != FILE_SIZE;
+            if (fresh) {
+                file.setLength(FILE_SIZE);
+            }
+            channel = file.getChannel();
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (fresh || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                for (int i = 0; i < FILE_SIZE; i++) {
+                    mapped.put(i, (byte) 0);
+                }
+                mapped.putInt(0, MAGIC);
+                mapped.putInt(4, VERSION);
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Restores the newest intact slot into {@code state}.
+     *
+     * @return false if the file holds no valid state yet.
+     */
+    public synchronized boolean load(DetectorState state) {
+        int best = -1;
+        long bestGeneration = 0;
+        for (int slot = 0; slot < 2; slot++) {
+            long gen = readValidGeneration(slot);
+            if (gen > bestGeneration) {
+                bestGeneration = gen;
+                best = slot;
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+
+        int base = slotOffset(best) + 8 + 4;
+        int hits = mapped.getInt(base);
+        long lastAlertUploadMs = mapped.getLong(base + 4);
+        long lastUpdateMs = mapped.getLong(base + 12);
+        long samplePeriodMs = mapped.getLong(base + 20);
+        int historyCount = mapped.getInt(base + 28);
+        int historyBase = base + 32;
+        for (int i = 0; i < DetectorState.SCORE_HISTORY_SIZE; i++) {
+            historyScratch[i] = mapped.getFloat(historyBase + 4 * i);
+        }
+        state.restore(hits, lastAlertUploadMs, lastUpdateMs, samplePeriodMs, historyScratch, historyCount);
+        generation = bestGeneration;
+        return true;
+    }
+
+    /** Writes {@code state} into the inactive slot. Cheap enough to call every frame. */
+    public synchronized void save(DetectorState state) {
+        long nextGeneration = generation + 1;
+        int historyCount = state.copyScoreHistory(historyScratch);
+
+        scratch.clear();
+        scratch.putLong(nextGeneration);
+        scratch.putInt(state.getConsecutiveFireHits());
+        scratch.putLong(state.getLastAlertUploadMs());
+        scratch.putLong(state.getLastUpdateMs());
+        scratch.putLong(state.getSamplePeriodMs());
+        scratch.putInt(historyCount);
+        for (int i = 0; i < DetectorState.SCORE_HISTORY_SIZE; i++) {
+            scratch.putFloat(i < historyCount ? historyScratch[i] : 0f);
+        }
+
+        crc.reset();
+        crc.update(scratch.array(), 0, scratch.position());
+        int checksum = (int) crc.getValue();
+
+        int offset = slotOffset((int) (nextGeneration & 1));
+        // Invalidate the slot first so a half-written payload can never pass the CRC check.
+        mapped.putLong(offset, 0L);
+        for (int i = 8; i < scratch.position(); i++) {
+            mapped.put(offset + 4 + i, scratch.get(i));
+        }
+        mapped.putInt(offset + 8, checksum);
+        mapped.putLong(offset, nextGeneration);
+        generation = nextGeneration;
+    }
+
+    /** Forces dirty pages to storage. Call sparingly. */
+    public synchronized void flush() {
+        mapped.force();
+    }
+
+    public synchronized void close() throws IOException {
+        mapped.force();
+        channel.close();
+        file.close();
+    }
+
+    private long readValidGeneration(int slot) {
+        int offset = slotOffset(slot);
+        long gen = mapped.getLong(offset);
+        if (gen <= 0) {
+            return 0;
+        }
+        int storedChecksum = mapped.getInt(offset + 8);
+
+        scratch.clear();
+        scratch.putLong(gen);
+        for (int i = 0; i < PAYLOAD_SIZE; i++) {
+            scratch.put(mapped.get(offset + 12 + i));
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, scratch.position());
+        return (int) crc.getValue() == storedChecksum ? gen : 0;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
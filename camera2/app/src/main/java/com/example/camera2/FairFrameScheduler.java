@@ -0,0 +1,72 @@
+package com.example.camera2;
+
+/**
+ * Round-robin scheduler that multiplexes several camera streams into one inference engine.
+ *
+ * Each stream is visited in turn. The tick period is stretched when needed so that the
+ * shared engine never spends more than {@code maxDutyCycle} of wall time in inference,
+ * whatever the number of streams.
+ */
+public final class FairFrameScheduler {
+    private static final float EMA_ALPHA = 0.2f;
+
+    private final long perStreamIntervalMs;
+    private final float maxDutyCycle;
+    private int streamCount;
+    private int cursor;
+    private float avgInferenceMs;
+    private boolean hasInferenceSample;
+
+    public FairFrameScheduler(long perStreamIntervalMs, float maxDutyCycle) {
+        if (perStreamIntervalMs <= 0) {
+            throw new IllegalArgumentException("perStreamIntervalMs must be > 0");
+        }
+        if (maxDutyCycle <= 0f || maxDutyCycle > 1f) {
+            throw new IllegalArgumentException("maxDutyCycle must be in (0, 1]");
+        }
+        this.perStreamIntervalMs = perStreamIntervalMs;
+        this.maxDutyCycle = maxDutyCycle;
+    }
+
+    public synchronized void setStreamCount(int streamCount) {
+        this.streamCount = Math.max(0, streamCount);
+        if (cursor >= this.streamCount) {
+            cursor = 0;
+        }
+    }
+
+    /** Returns the index of the stream to sample next, or -1 when there are no streams. */
+    public synchronized int pickNext() {
+        if (streamCount == 0) {
+            return -1;
+        }
+        int picked = cursor;
+        cursor = (cursor + 1) % streamCount;
+        return picked;
+    }
+
+    public synchronized void recordInference(long durationMs) {
+        if (!hasInferenceSample) {
+            avgInferenceMs = durationMs;
+            hasInferenceSample = true;
+        } else {
+            avgInferenceMs += EMA_ALPHA * (durationMs - avgInferenceMs);
+        }
+    }
+
+    /** Delay until the next tick: the per-stream interval split across streams, capped by the latency budget. */
+    public synchronized long nextDelayMs() {
+        long shared = perStreamIntervalMs / Math.max(1, streamCount);
+        long budgeted = (long) Math.ceil(avgInferenceMs / maxDutyCycle);
+        return Math.max(shared, budgeted);
+    }
+
+    /** How often each stream is sampled at the current load: the tick delay times the stream count. */
+    public synchronized long perStreamPeriodMs() {
+        return nextDelayMs() * Math.max(1, streamCount);
+    }
+
+    public synchronized float getAverageInferenceMs() {
+        return avgInferenceMs;
+    }
+}
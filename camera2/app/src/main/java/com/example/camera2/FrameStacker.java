@@ -0,0 +1,98 @@
+package com.example.camera2;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates several low-light frames of a fixed size into a preallocated float buffer and
+ * averages them, which cuts sensor noise by roughly the square root of the frame count.
+ *
+ * Once {@code maxFrames} frames are stacked, older frames are decayed before each new one is
+ * added, so the stack behaves like a running average over the latest frames instead of
+ * growing stale.
+ *
+ * Pure Java so the stacking math can be tested on the JVM.
+ */
+public final class FrameStacker {
+    private final int width;
+    private final int height;
+    private final int maxFrames;
+    private final float[] accumulator;
+    private int frameCount;
+
+    public FrameStacker(int width, int height, int maxFrames) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid size: " + width + "x" + height);
+        }
+        if (maxFrames <= 0) {
+            throw new IllegalArgumentException("maxFrames must be > 0");
+        }
+        this.width = width;
+        this.height = height;
+        this.maxFrames = maxFrames;
+        this.accumulator = new float[width * height * 3];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public synchronized int getFrameCount() {
+        return frameCount;
+    }
+
+    /** Adds one ARGB frame of exactly {@code width * height} pixels. */
+    public synchronized void add(int[] argb) {
+        int pixels = width * height;
+        if (argb.length < pixels) {
+            throw new IllegalArgumentException("frame too small: " + argb.length);
+        }
+        float[] acc = accumulator;
+        if (frameCount >= maxFrames) {
+            float keep = (maxFrames - 1f) / maxFrames;
+            for (int j = 0; j < acc.length; j++) {
+                acc[j] *= keep;
+            }
+            frameCount = maxFrames - 1;
+        }
+        for (int i = 0, j = 0; i < pixels; i++, j += 3) {
+            int p = argb[i];
+            acc[j] += (p >> 16) & 0xFF;
+            acc[j + 1] += (p >> 8) & 0xFF;
+            acc[j + 2] += p & 0xFF;
+        }
+        frameCount += 1;
+    }
+
+    /**
+     * Writes the mean of the accumulated frames into {@code out} as opaque ARGB.
+     *
+     * @return false if no frame has been added yet.
+     */
+    public synchronized boolean averageInto(int[] out) {
+        int pixels = width * height;
+        if (out.length < pixels) {
+            throw new IllegalArgumentException("out too small: " + out.length);
+        }
+        if (frameCount == 0) {
+            return false;
+        }
+        float scale = 1f / frameCount;
+        float[] acc = accumulator;
+        for (int i = 0, j = 0; i < pixels; i++, j += 3) {
+            int r = Math.round(acc[j] * scale);
+            int g = Math.round(acc[j + 1] * scale);
+            int b = Math.round(acc[j + 2] * scale);
+            out[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+        return true;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(accumulator, 0f);
+        frameCount = 0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.camera2;
+
+/**
+ * Decides when the scene is dark enough for long-exposure stacked capture, and provides the
+ * cheap bright-hot-spot check used to gate full inference at night.
+ *
+ * Mode switches use hysteresis: night mode is entered after several consecutive dark frames.
+ * Under manual long exposure it is left only once frames are clearly over-exposed, since the
+ * luminance measured then is much higher than the true scene luminance. Cameras that stayed on
+ * auto exposure leave it at the much lower {@code autoExitLuma}; auto exposure never pushes a
+ * daylight scene anywhere near the manual threshold.
+ */
+public final class LowLightDetector {
+    // Long high-ISO exposures blow flame cores out to near white, losing the red cast.
+    private static final int CLIPPED_LUMA = 250;
+
+    private final float enterLuma;
+    private final float exitLuma;
+    private final float autoExitLuma;
+    private final int framesToSwitch;
+    private boolean lowLight;
+    private int streak;
+
+    public LowLightDetector(float enterLuma, float exitLuma, float autoExitLuma, int framesToSwitch) {
+        if (exitLuma <= enterLuma || autoExitLuma <= enterLuma) {
+            throw new IllegalArgumentException("exit thresholds must be above enterLuma");
+        }
+        this.enterLuma = enterLuma;
+        this.exitLuma = exitLuma;
+        this.autoExitLuma = autoExitLuma;
+        this.framesToSwitch = Math.max(1, framesToSwitch);
+    }
+
+    public synchronized boolean isLowLight() {
+        return lowLight;
+    }
+
+    /**
+     * Feeds one frame's mean luma and whether the frame was taken under manual long exposure;
+     * returns true if the mode changed.
+     */
+    public synchronized boolean update(float meanLuma, boolean manualExposure) {
+        float leaveLuma = manualExposure ? exitLuma : autoExitLuma;
+        boolean wantsSwitch = lowLight ? meanLuma > leaveLuma : meanLuma < enterLuma;
+        if (!wantsSwitch) {
+            streak = 0;
+            return false;
+        }
+        streak += 1;
+        if (streak < framesToSwitch) {
+            return false;
+        }
+        lowLight = !lowLight;
+        streak = 0;
+        return true;
+    }
+
+    /** Mean BT.601 luma (0..255) over every {@code step}-th pixel. */
+    public static float meanLuma(int[] argb, int pixelCount, int step) {
+        step = Math.max(1, step);
+        long sum = 0;
+        int samples = 0;
+        for (int i = 0; i < pixelCount; i += step) {
+            sum += luma(argb[i]);
+            samples += 1;
+        }
+        return samples == 0 ? 0f : (float) sum / samples;
+    }
+
+    /**
+     * Fraction of pixels that look like a glowing hot spot: much brighter than the scene mean
+     * and either red-dominant, as flames and embers are at night, or clipped, as flame cores
+     * are under long exposure.
+     */
+    public static float hotSpotFraction(int[] argb, int pixelCount, float sceneMeanLuma, int minContrast) {
+        if (pixelCount <= 0) {
+            return 0f;
+        }
+        float lumaThreshold = sceneMeanLuma + minContrast;
+        int hot = 0;
+        for (int i = 0; i < pixelCount; i++) {
+            int p = argb[i];
+            int r = (p >> 16) & 0xFF;
+            int g = (p >> 8) & 0xFF;
+            int b = p & 0xFF;
+            int l = luma(p);
+            if (l >= lumaThreshold && (l >= CLIPPED_LUMA || (r >= g && r > b + 40))) {
+                hot += 1;
+            }
+        }
+        return (float) hot / pixelCount;
+    }
+
+    private static int luma(int p) {
+        int r = (p >> 16) & 0xFF;
+        int g = (p >> 8) & 0xFF;
+        int b = p & 0xFF;
+        return (77 * r + 150 * g + 29 * b) >> 8;
+    }
+}
@@ -9,10 +9,12 @@ import android.graphics.Bitmap;
 import android.graphics.SurfaceTexture;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraDevice;
 import android.hardware.camera2.CameraManager;
 import android.hardware.camera2.CaptureRequest;
 import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.params.OutputConfiguration;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -20,8 +22,10 @@ import android.os.Environment;
 import android.os.Looper;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.util.Log;
+import android.util.Range;
 import android.util.Size;
 import android.view.Surface;
 import android.view.TextureView;
@@ -35,30 +39,74 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.pytorch.IValue;
 import org.pytorch.LiteModuleLoader;
 import org.pytorch.Module;
 import org.pytorch.Tensor;
 import org.pytorch.torchvision.TensorImageUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
     private static final int CAMERA_PERMISSION_REQUEST_CODE = 100;
     private static final String MODEL_ASSET_NAME = "forest_fire_classifier_mobilenetv3_small.ptl";
-    private static final int FIRE_CLASS_INDEX = 0;
+    static final int FIRE_CLASS_INDEX = 0;
     private static final boolean DEBUG_DUMP_PREPROCESSED_IMAGES = false;
 
+    // Target sampling interval per camera stream; the scheduler may stretch it to stay in budget.
     private static final long CAPTURE_INTERVAL_MS = 5_000;
+    private static final int MAX_CAMERA_STREAMS = 3;
+    private static final float MAX_INFERENCE_DUTY_CYCLE = 0.5f;
+
+    // Low-light mode: entered on dark auto-exposed frames, left once long exposures saturate.
+    private static final float LOW_LIGHT_ENTER_LUMA = 35f;
+    private static final float LOW_LIGHT_EXIT_LUMA = 200f;
+    // Exit threshold for cameras left on auto exposure, which keeps even daylight well below 200.
+    private static final float LOW_LIGHT_AUTO_EXIT_LUMA = 60f;
+    private static final int LOW_LIGHT_SWITCH_FRAMES = 3;
+    private static final int LUMA_SAMPLE_STEP = 4;
+    private static final int STACK_FRAME_SIZE = 256;
+    private static final long STACK_FRAME_INTERVAL_MS = CameraStream.STACK_FRAME_INTERVAL_MS;
+    private static final float HOT_SPOT_MIN_FRACTION = 0.0005f;
+    private static final int HOT_SPOT_MIN_CONTRAST = 60;
+
+    // Model updates: a new model must fit one stream's share of the inference budget, then
+    // survive a probation of live frames before it replaces the installed model on disk.
+    private static final long MODEL_UPDATE_INTERVAL_MS = 6 * 60 * 60 * 1000L;
+    private static final long MODEL_MAX_LATENCY_MS =
+            (long) (CAPTURE_INTERVAL_MS * MAX_INFERENCE_DUTY_CYCLE / MAX_CAMERA_STREAMS);
+    private static final int MODEL_PROBATION_FRAMES = 30;
+    private static final float MODEL_MAX_LATENCY_RATIO = 1.5f;
+    private static final float MODEL_MAX_SCORE_SHIFT = 0.3f;
+    private static final float MODEL_LATENCY_EMA_ALPHA = 0.2f;
+
+    // Cascade: a tiny 64x64 model scores every frame; the full model runs only above the
+    // escalation threshold that mobilenetv3/cascade_eval.py validated and wrote next to it.
+    // Without both assets every frame is escalated.
+    private static final String STAGE_ONE_ASSET_NAME = "fire_stage1_tiny64.ptl";
+    private static final String STAGE_ONE_CONFIG_ASSET_NAME = "fire_stage1_tiny64.json";
+    private static final int STAGE_ONE_INPUT_SIZE = 64;
+    private static final long CASCADE_LOG_EVERY_FRAMES = 100;
+
     private static final float FIRE_CONFIDENCE_THRESHOLD = 0.80f;
     private static final int REQUIRED_CONSECUTIVE_HITS = 3;
     private static final long ALERT_COOLDOWN_MS = 60_000;
+    // A persisted hit streak older than one full hit window, measured in the stream's actual
+    // sampling periods, no longer describes the scene.
+    private static final int STATE_RESUME_WINDOW_SAMPLES = REQUIRED_CONSECUTIVE_HITS + 1;
 
     private TextureView textureView;
     private TextView tvResult;
@@ -66,7 +114,39 @@ public class MainActivity extends AppCompatActivity {
     private CameraDevice cameraDevice;
     private CameraCaptureSession cameraCaptureSession;
     private CaptureRequest.Builder captureRequestBuilder;
-    private Module module;
+    private String primaryCameraId;
+    private List<String> physicalStreamIds = new ArrayList<>();
+    // Streams ready for inference, in round-robin order.
+    private final List<CameraStream> cameraStreams = new CopyOnWriteArrayList<>();
+    // Every stream created since the cameras were opened, including ones still configuring.
+    private final List<CameraStream> openedStreams = new CopyOnWriteArrayList<>();
+    private final FairFrameScheduler frameScheduler =
+            new FairFrameScheduler(CAPTURE_INTERVAL_MS, MAX_INFERENCE_DUTY_CYCLE);
+    private final AtomicBoolean inferenceInFlight = new AtomicBoolean(false);
+    private final LowLightDetector lowLightDetector =
+            new LowLightDetector(LOW_LIGHT_ENTER_LUMA, LOW_LIGHT_EXIT_LUMA, LOW_LIGHT_AUTO_EXIT_LUMA,
+                    LOW_LIGHT_SWITCH_FRAMES);
+    // Whether the preview request currently runs manual long exposure; it drives the mode decision.
+    private volatile boolean previewManualExposure;
+    // Preallocated buffers: frameArgb is used on the background thread, the stack buffers on the UI thread.
+    private final int[] frameArgb = new int[224 * 224];
+    private Bitmap previewStackBitmap;
+    private int[] previewStackArgb;
+    private long lastPreviewStackMs;
+    // Read once per frame on the background thread, so a swap always lands between frames.
+    private volatile Module module;
+    private ModelUpdater modelUpdater;
+    // Probation state, touched only on the background thread.
+    private Module previousModule;
+    private ModelUpdater.Candidate probationCandidate;
+    private ModelProbation modelProbation;
+    // Average latency of frames where the installed model actually ran; the probation baseline.
+    private float modelFrameAvgMs;
+    private Module stageOneModule;
+    private float stageOneThreshold;
+    private final CascadeStats cascadeStats = new CascadeStats();
+    // Gate that decided the last frame, or null when stage one was not in use. Inference thread only.
+    private CascadeStats.Outcome lastCascadeOutcome;
     private final Size imageSize = new Size(224, 224);
 
     private HandlerThread backgroundThread;
@@ -75,8 +155,6 @@ public class MainActivity extends AppCompatActivity {
 
     private Handler mainHandler;
     private boolean monitoringEnabled = true;
-    private int consecutiveFireHits = 0;
-    private long lastAlertUploadMs = 0;
 
     private AlertReporter alertReporter;
     private String deviceId;
@@ -87,7 +165,29 @@ public class MainActivity extends AppCompatActivity {
                 return;
             }
             captureAndProcessImage();
-            mainHandler.postDelayed(this, CAPTURE_INTERVAL_MS);
+            mainHandler.postDelayed(this, frameScheduler.nextDelayMs());
+        }
+    };
+    private final Runnable modelUpdateTick = new Runnable() {
+        @Override
+        public void run() {
+            modelUpdater.checkForUpdate(new ModelUpdater.Listener() {
+                @Override
+                public void onCandidateReady(final ModelUpdater.Candidate candidate) {
+                    Handler handler = backgroundHandler;
+                    boolean posted = handler != null && handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            beginModelProbation(candidate);
+                        }
+                    });
+                    if (!posted) {
+                        candidate.module.destroy();
+                        modelUpdater.abandon(candidate);
+                    }
+                }
+            });
+            mainHandler.postDelayed(this, MODEL_UPDATE_INTERVAL_MS);
         }
     };
 
@@ -115,7 +215,9 @@ public class MainActivity extends AppCompatActivity {
 
         @Override
         public void onSurfaceTextureUpdated(SurfaceTexture surface) {
-            // Handle updates to the SurfaceTexture
+            if (monitoringEnabled && lowLightDetector.isLowLight()) {
+                stackPreviewFrame();
+            }
         }
     };
 
@@ -132,13 +234,15 @@ public class MainActivity extends AppCompatActivity {
         deviceId = getOrCreateDeviceId();
         alertReporter = new AlertReporter(BuildConfig.SERVER_BASE_URL, BuildConfig.SERVER_API_KEY);
 
+        // Set unconditionally: onSurfaceTextureUpdated feeds low-light stacking even when the
+        // surface is already available and the camera is opened from onResume.
+        textureView.setSurfaceTextureListener(textureListener);
+
         // Request camera permission if not already granted
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
                 != PackageManager.PERMISSION_GRANTED) {
             ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.CAMERA},
                     CAMERA_PERMISSION_REQUEST_CODE);
-        } else if (!textureView.isAvailable()) {
-            textureView.setSurfaceTextureListener(textureListener);
         }
 
         btnProcess.setOnClickListener(new View.OnClickListener() {
@@ -151,26 +255,90 @@ public class MainActivity extends AppCompatActivity {
                 } else {
                     btnProcess.setText("Start monitoring");
                     stopMonitoring();
+                    resetDetectorState();
                 }
             }
         });
 
+        File bundledModel = null;
         try {
-            module = LiteModuleLoader.load(assetFilePath(MODEL_ASSET_NAME, true));
-        } catch (Exception e) {
+            bundledModel = new File(assetFilePath(MODEL_ASSET_NAME, true));
+        } catch (IOException e) {
             e.printStackTrace();
         }
+        modelUpdater = new ModelUpdater(
+                this,
+                BuildConfig.SERVER_BASE_URL,
+                BuildConfig.SERVER_API_KEY,
+                BuildConfig.MODEL_SIGNING_PUBLIC_KEY,
+                bundledModel,
+                MODEL_MAX_LATENCY_MS
+        );
+        module = loadInstalledModel();
+        if (BuildConfig.CASCADE_ENABLED) {
+            stageOneModule = loadStageOneModel();
+        }
+    }
+
+    private Module loadStageOneModel() {
+        try {
+            stageOneThreshold = readStageOneThreshold();
+            return LiteModuleLoader.load(assetFilePath(STAGE_ONE_ASSET_NAME, true));
+        } catch (Exception e) {
+            Log.w(TAG, "Stage-one model unavailable, running the full model on every frame", e);
+            return null;
+        }
+    }
+
+    private float readStageOneThreshold() throws IOException, JSONException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = getAssets().open(STAGE_ONE_CONFIG_ASSET_NAME)) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        float threshold = (float) new JSONObject(out.toString("UTF-8")).getDouble("escalation_threshold");
+        if (!(threshold > 0f && threshold <= 1f)) {
+            throw new IOException("Bad stage-one escalation threshold: " + threshold);
+        }
+        return threshold;
+    }
+
+    private Module loadInstalledModel() {
+        File installed = modelUpdater.installedModelFile();
+        if (installed == null) {
+            Log.w(TAG, "No model available to load.");
+            return null;
+        }
+        try {
+            return LiteModuleLoader.load(installed.getAbsolutePath());
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to load installed model", e);
+        }
+        // A downloaded model that passed probation but no longer loads: fall back to the bundled one.
+        if (modelUpdater.discardDownloadedModel()) {
+            try {
+                return LiteModuleLoader.load(modelUpdater.installedModelFile().getAbsolutePath());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return null;
     }
 
     private void openCamera() {
         CameraManager manager = (CameraManager) getSystemService(CAMERA_SERVICE);
         try {
             String cameraId = manager.getCameraIdList()[0];
+            primaryCameraId = cameraId;
+            physicalStreamIds = MultiCameraSelector.physicalSubStreams(manager, cameraId, MAX_CAMERA_STREAMS - 1);
             manager.openCamera(cameraId, new CameraDevice.StateCallback() {
                 @Override
                 public void onOpened(@NonNull CameraDevice camera) {
                     cameraDevice = camera;
-                    startCameraPreview();
+                    startCameraPreview(!physicalStreamIds.isEmpty());
                 }
 
                 @Override
@@ -184,38 +352,154 @@ public class MainActivity extends AppCompatActivity {
                     cameraDevice = null;
                 }
             }, backgroundHandler); // Use backgroundHandler for camera operations
+
+            // Physical sub-streams share the primary session; otherwise try separate concurrent cameras.
+            if (physicalStreamIds.isEmpty()) {
+                for (String peerId : MultiCameraSelector.concurrentPeers(manager, cameraId, MAX_CAMERA_STREAMS - 1)) {
+                    openPeerCamera(manager, peerId);
+                }
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void startCameraPreview() {
+    private void startCameraPreview(final boolean withPhysicalStreams) {
         SurfaceTexture texture = textureView.getSurfaceTexture();
         texture.setDefaultBufferSize(imageSize.getWidth(), imageSize.getHeight());
         Surface surface = new Surface(texture);
+        CameraManager manager = (CameraManager) getSystemService(CAMERA_SERVICE);
 
+        final List<CameraStream> streams = new ArrayList<>();
         try {
             captureRequestBuilder = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
             captureRequestBuilder.addTarget(surface);
+            streams.add(CameraStream.forPreview(primaryCameraId));
 
-            cameraDevice.createCaptureSession(Arrays.asList(surface), new CameraCaptureSession.StateCallback() {
+            List<OutputConfiguration> outputs = new ArrayList<>();
+            outputs.add(new OutputConfiguration(surface));
+            if (withPhysicalStreams) {
+                for (String physicalId : physicalStreamIds) {
+                    CameraStream stream = CameraStream.forReader(
+                            physicalId, MultiCameraSelector.readerSize(manager, physicalId), backgroundHandler);
+                    Surface readerSurface = stream.getReader().getSurface();
+                    OutputConfiguration output = new OutputConfiguration(readerSurface);
+                    output.setPhysicalCameraId(physicalId);
+                    outputs.add(output);
+                    captureRequestBuilder.addTarget(readerSurface);
+                    streams.add(stream);
+                }
+            }
+            openedStreams.addAll(streams);
+
+            cameraDevice.createCaptureSessionByOutputConfigurations(outputs, new CameraCaptureSession.StateCallback() {
                 @Override
                 public void onConfigured(@NonNull CameraCaptureSession session) {
                     cameraCaptureSession = session;
+                    for (CameraStream stream : streams) {
+                        addStream(stream);
+                    }
                     updatePreview();
                 }
 
                 @Override
                 public void onConfigureFailed(@NonNull CameraCaptureSession session) {
+                    discardStreams(streams);
+                    if (withPhysicalStreams && cameraDevice != null) {
+                        Log.w(TAG, "Physical sub-streams not supported together; using the logical camera only.");
+                        startCameraPreview(false);
+                    }
                 }
             }, backgroundHandler); // Use backgroundHandler for camera operations
         } catch (Exception e) {
+            discardStreams(streams);
+            e.printStackTrace();
+        }
+    }
+
+    private void openPeerCamera(CameraManager manager, String peerId) throws CameraAccessException {
+        final CameraStream stream = CameraStream.forReader(
+                peerId, MultiCameraSelector.readerSize(manager, peerId), backgroundHandler);
+        final Range<Integer> fpsRange = MultiCameraSelector.lowestFpsRange(manager, peerId);
+        openedStreams.add(stream);
+        manager.openCamera(peerId, new CameraDevice.StateCallback() {
+            @Override
+            public void onOpened(@NonNull CameraDevice camera) {
+                stream.device = camera;
+                startPeerSession(stream, fpsRange);
+            }
+
+            @Override
+            public void onDisconnected(@NonNull CameraDevice camera) {
+                camera.close();
+                discardStreams(Arrays.asList(stream));
+            }
+
+            @Override
+            public void onError(@NonNull CameraDevice camera, int error) {
+                Log.w(TAG, "Camera " + stream.cameraId + " error " + error);
+                camera.close();
+                discardStreams(Arrays.asList(stream));
+            }
+        }, backgroundHandler);
+    }
+
+    private void startPeerSession(final CameraStream stream, Range<Integer> fpsRange) {
+        Surface surface = stream.getReader().getSurface();
+        try {
+            final CaptureRequest.Builder builder = stream.device.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
+            builder.addTarget(surface);
+            applyExposureMode(builder, stream.cameraId);
+            if (fpsRange != null) {
+                builder.set(CaptureRequest.CONTROL_AE_TARGET_FPS_RANGE, fpsRange);
+            }
+
+            stream.device.createCaptureSession(Arrays.asList(surface), new CameraCaptureSession.StateCallback() {
+                @Override
+                public void onConfigured(@NonNull CameraCaptureSession session) {
+                    stream.session = session;
+                    stream.requestBuilder = builder;
+                    try {
+                        session.setRepeatingRequest(builder.build(), null, backgroundHandler);
+                        addStream(stream);
+                    } catch (CameraAccessException e) {
+                        e.printStackTrace();
+                        discardStreams(Arrays.asList(stream));
+                    }
+                }
+
+                @Override
+                public void onConfigureFailed(@NonNull CameraCaptureSession session) {
+                    Log.w(TAG, "Camera " + stream.cameraId + " cannot stream concurrently; skipping it.");
+                    discardStreams(Arrays.asList(stream));
+                }
+            }, backgroundHandler);
+        } catch (CameraAccessException e) {
             e.printStackTrace();
+            discardStreams(Arrays.asList(stream));
+        }
+    }
+
+    private void addStream(CameraStream stream) {
+        stream.attachStateStore(getFilesDir(), frameScheduler.perStreamPeriodMs(), STATE_RESUME_WINDOW_SAMPLES);
+        stream.setStacking(lowLightDetector.isLowLight());
+        cameraStreams.add(stream);
+        frameScheduler.setStreamCount(cameraStreams.size());
+        Log.i(TAG, "Camera stream ready: " + stream.cameraId + " (" + cameraStreams.size() + " active)");
+    }
+
+    private void discardStreams(List<CameraStream> streams) {
+        for (CameraStream stream : streams) {
+            cameraStreams.remove(stream);
+            openedStreams.remove(stream);
+            stream.closeCamera();
+            stream.release();
         }
+        frameScheduler.setStreamCount(cameraStreams.size());
     }
 
     private void updatePreview() {
-        captureRequestBuilder.set(CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
+        previewManualExposure = applyExposureMode(captureRequestBuilder, primaryCameraId);
         try {
             cameraCaptureSession.setRepeatingRequest(captureRequestBuilder.build(), null, backgroundHandler); // Use backgroundHandler instead of null
         } catch (CameraAccessException e) {
@@ -223,25 +507,140 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    private boolean applyExposureMode(CaptureRequest.Builder builder, String cameraId) {
+        CameraCharacteristics characteristics = null;
+        try {
+            CameraManager manager = (CameraManager) getSystemService(CAMERA_SERVICE);
+            characteristics = manager.getCameraCharacteristics(cameraId);
+        } catch (CameraAccessException e) {
+            Log.w(TAG, "No characteristics for camera " + cameraId + "; using auto exposure", e);
+        }
+        return NightExposure.apply(builder, characteristics, lowLightDetector.isLowLight());
+    }
+
+    // Runs on the background thread, like every other camera call.
+    private void onLowLightModeChanged(boolean lowLight) {
+        Log.i(TAG, "Low-light mode " + (lowLight ? "entered" : "left"));
+        for (CameraStream stream : cameraStreams) {
+            stream.setStacking(lowLight);
+        }
+        if (cameraCaptureSession != null && captureRequestBuilder != null) {
+            updatePreview();
+        }
+        for (CameraStream stream : openedStreams) {
+            if (stream.session == null || stream.requestBuilder == null) {
+                continue;
+            }
+            applyExposureMode(stream.requestBuilder, stream.cameraId);
+            try {
+                stream.session.setRepeatingRequest(stream.requestBuilder.build(), null, backgroundHandler);
+            } catch (CameraAccessException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // The preview has no ImageReader, so low-light frames are pulled from the TextureView as they arrive.
+    private void stackPreviewFrame() {
+        long nowMs = SystemClock.elapsedRealtime();
+        if (nowMs - lastPreviewStackMs < STACK_FRAME_INTERVAL_MS) {
+            return;
+        }
+        CameraStream preview = null;
+        for (CameraStream stream : cameraStreams) {
+            if (stream.isPreview()) {
+                preview = stream;
+                break;
+            }
+        }
+        if (preview == null || !preview.isStacking()) {
+            return;
+        }
+        lastPreviewStackMs = nowMs;
+        if (previewStackBitmap == null) {
+            previewStackBitmap = Bitmap.createBitmap(STACK_FRAME_SIZE, STACK_FRAME_SIZE, Bitmap.Config.ARGB_8888);
+            previewStackArgb = new int[STACK_FRAME_SIZE * STACK_FRAME_SIZE];
+        }
+        textureView.getBitmap(previewStackBitmap);
+        previewStackBitmap.getPixels(previewStackArgb, 0, STACK_FRAME_SIZE, 0, 0, STACK_FRAME_SIZE, STACK_FRAME_SIZE);
+        preview.addStackFrame(previewStackArgb, STACK_FRAME_SIZE, STACK_FRAME_SIZE);
+    }
+
     private void captureAndProcessImage() {
-        final Bitmap bitmap = textureView.getBitmap();
-        if (bitmap == null || module == null || backgroundHandler == null) {
+        Handler handler = backgroundHandler;
+        if (module == null || handler == null) {
+            return;
+        }
+        // The engine is shared by all streams; skip this tick rather than queue frames behind it.
+        if (!inferenceInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        // Streams can be discarded on the camera thread meanwhile; index into a snapshot.
+        CameraStream[] streams = cameraStreams.toArray(new CameraStream[0]);
+        int index = frameScheduler.pickNext();
+        if (index < 0 || index >= streams.length) {
+            inferenceInFlight.set(false);
+            return;
+        }
+        final CameraStream stream = streams[index];
+        final Bitmap previewBitmap = stream.isPreview() ? textureView.getBitmap() : null;
+        if (stream.isPreview() && previewBitmap == null) {
+            inferenceInFlight.set(false);
             return;
         }
 
-        backgroundHandler.post(new Runnable() {
+        boolean posted = handler.post(new Runnable() {
             @Override
             public void run() {
+                long startNs = System.nanoTime();
+                // Stacked low-light frames win over the single preview frame when there are any.
+                Bitmap bitmap = stream.isStacking() || previewBitmap == null ? stream.grabFrame() : null;
+                if (bitmap == null) {
+                    bitmap = previewBitmap;
+                } else if (previewBitmap != null) {
+                    previewBitmap.recycle();
+                }
+                if (bitmap == null) {
+                    inferenceInFlight.set(false);
+                    return;
+                }
+                float modelScore = -1f;
                 try {
-                    processBitmap(bitmap);
+                    modelScore = processBitmap(stream, bitmap);
                 } finally {
                     bitmap.recycle();
+                    long elapsedMs = (System.nanoTime() - startNs) / 1_000_000L;
+                    frameScheduler.recordInference(elapsedMs);
+                    CascadeStats.Outcome outcome = lastCascadeOutcome;
+                    if (outcome != null) {
+                        cascadeStats.record(outcome, elapsedMs);
+                        if (cascadeStats.getFrames() % CASCADE_LOG_EVERY_FRAMES == 0) {
+                            Log.i(TAG, "Cascade: " + cascadeStats.summary());
+                        }
+                    }
+                    inferenceInFlight.set(false);
+                    updateModelProbation(elapsedMs, modelScore);
                 }
             }
         });
+        if (!posted) {
+            if (previewBitmap != null) {
+                previewBitmap.recycle();
+            }
+            inferenceInFlight.set(false);
+        }
     }
 
-    private void processBitmap(Bitmap bitmap) {
+    /**
+     * Returns the model's fire probability, or -1 if the model did not run on this frame.
+     * Leaves the gate that decided the frame in {@link #lastCascadeOutcome}.
+     */
+    private float processBitmap(CameraStream stream, Bitmap bitmap) {
+        lastCascadeOutcome = null;
+        Module currentModule = module;
+        if (currentModule == null) {
+            return -1f;
+        }
         Bitmap resizedBitmap = null;
         Bitmap centerCroppedBitmap = null;
         try {
@@ -251,32 +650,67 @@ public class MainActivity extends AppCompatActivity {
                 dumpPreprocessedImage(centerCroppedBitmap);
             }
 
-            final Tensor inputTensor = TensorImageUtils.bitmapToFloat32Tensor(
-                    centerCroppedBitmap,
-                    TensorImageUtils.TORCHVISION_NORM_MEAN_RGB,
-                    TensorImageUtils.TORCHVISION_NORM_STD_RGB
-            );
-
-            Tensor outputTensor = module.forward(IValue.from(inputTensor)).toTensor();
-            float[] scores = outputTensor.getDataAsFloatArray();
-            Log.d(TAG, "scores=" + Arrays.toString(scores));
-            if (scores.length < 2) {
-                Log.w(TAG, "Unexpected output size: " + scores.length);
-                return;
+            centerCroppedBitmap.getPixels(frameArgb, 0, 224, 0, 0, 224, 224);
+            float meanLuma = LowLightDetector.meanLuma(frameArgb, frameArgb.length, LUMA_SAMPLE_STEP);
+            // The preview camera decides the mode for all streams; they share the same scene light.
+            if (stream.isPreview() && lowLightDetector.update(meanLuma, previewManualExposure)) {
+                onLowLightModeChanged(lowLightDetector.isLowLight());
             }
+            final boolean lowLight = lowLightDetector.isLowLight();
 
-            float fireProb = softmax2(scores[FIRE_CLASS_INDEX], scores[1]);
-            final boolean isFire = fireProb >= FIRE_CONFIDENCE_THRESHOLD;
-
-            if (isFire) {
-                consecutiveFireHits += 1;
+            float fireProb;
+            boolean ranModel = false;
+            // Dark frame with nothing glowing: skip both models.
+            boolean darkAndQuiet = lowLight && LowLightDetector.hotSpotFraction(
+                    frameArgb, frameArgb.length, meanLuma, HOT_SPOT_MIN_CONTRAST) < HOT_SPOT_MIN_FRACTION;
+            // A model on probation has to see full-model frames, so stage one is bypassed meanwhile.
+            boolean cascadeActive = stageOneModule != null && modelProbation == null;
+            float stageOneProb = darkAndQuiet || !cascadeActive ? 1f : runStageOne(centerCroppedBitmap);
+            CascadeStats.Outcome outcome = darkAndQuiet ? CascadeStats.Outcome.NIGHT_GATED
+                    : stageOneProb < stageOneThreshold
+                    ? CascadeStats.Outcome.STAGE_ONE_REJECTED : CascadeStats.Outcome.ESCALATED;
+            // Frames that never had a stage one to pass through would skew the cascade stats.
+            lastCascadeOutcome = cascadeActive ? outcome : null;
+            if (outcome != CascadeStats.Outcome.ESCALATED) {
+                // Either nothing glows in the dark, or stage one is confident there is no fire. Its
+                // score is on a different scale than the full model's, so it is only displayed,
+                // never recorded as a fire score.
+                fireProb = 0f;
             } else {
-                consecutiveFireHits = 0;
+                final Tensor inputTensor = TensorImageUtils.bitmapToFloat32Tensor(
+                        centerCroppedBitmap,
+                        TensorImageUtils.TORCHVISION_NORM_MEAN_RGB,
+                        TensorImageUtils.TORCHVISION_NORM_STD_RGB
+                );
+
+                Tensor outputTensor = currentModule.forward(IValue.from(inputTensor)).toTensor();
+                float[] scores = outputTensor.getDataAsFloatArray();
+                Log.d(TAG, "scores=" + Arrays.toString(scores));
+                if (scores.length < 2) {
+                    Log.w(TAG, "Unexpected output size: " + scores.length);
+                    return Float.NaN;
+                }
+
+                fireProb = softmax2(scores[FIRE_CLASS_INDEX], scores[1]);
+                ranModel = true;
             }
+            final boolean isFire = fireProb >= FIRE_CONFIDENCE_THRESHOLD;
+
+            long nowMs = System.currentTimeMillis();
+            DetectorState detectorState = stream.detectorState;
+            detectorState.setSamplePeriodMs(frameScheduler.perStreamPeriodMs());
+            // Only full-model scores go into the history that probation compares against.
+            final int consecutiveFireHits = ranModel
+                    ? detectorState.recordScore(fireProb, isFire, nowMs)
+                    : detectorState.recordUnscored(nowMs);
 
             final String uiText = (isFire ? "FIRE" : "NO FIRE")
-                    + "\nconfidence=" + String.format("%.3f", fireProb)
-                    + "\nhits=" + consecutiveFireHits + "/" + REQUIRED_CONSECUTIVE_HITS;
+                    + "\ncamera=" + stream.cameraId + (lowLight ? " (night)" : "")
+                    + (ranModel || darkAndQuiet
+                            ? "\nconfidence=" + String.format("%.3f", fireProb)
+                            : "\nstage1=" + String.format("%.3f", stageOneProb))
+                    + "\nhits=" + consecutiveFireHits + "/" + REQUIRED_CONSECUTIVE_HITS
+                    + (stageOneModule != null ? "\ncascade " + cascadeStats.summary() : "");
 
             runOnUiThread(new Runnable() {
                 @Override
@@ -288,21 +722,22 @@ public class MainActivity extends AppCompatActivity {
                 }
             });
 
-            long nowMs = System.currentTimeMillis();
             boolean shouldUpload = isFire
                     && consecutiveFireHits >= REQUIRED_CONSECUTIVE_HITS
-                    && (nowMs - lastAlertUploadMs) >= ALERT_COOLDOWN_MS;
+                    && (nowMs - detectorState.getLastAlertUploadMs()) >= ALERT_COOLDOWN_MS;
             if (shouldUpload) {
-                lastAlertUploadMs = nowMs;
+                detectorState.markAlertUploaded(nowMs);
                 alertReporter.reportAlert(
                         deviceId,
+                        stream.cameraId,
                         nowMs,
                         fireProb,
                         consecutiveFireHits,
                         centerCroppedBitmap
                 );
-                consecutiveFireHits = 0;
             }
+            stream.persistState(shouldUpload);
+            return ranModel ? fireProb : -1f;
         } finally {
             if (resizedBitmap != null) {
                 resizedBitmap.recycle();
@@ -313,13 +748,91 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private static float softmax2(float a, float b) {
+    /** Returns the stage-one fire probability, or 1 (always escalate) when there is no usable stage one. */
+    private float runStageOne(Bitmap centerCroppedBitmap) {
+        if (stageOneModule == null) {
+            return 1f;
+        }
+        Bitmap smallBitmap = Bitmap.createScaledBitmap(
+                centerCroppedBitmap, STAGE_ONE_INPUT_SIZE, STAGE_ONE_INPUT_SIZE, true);
+        try {
+            Tensor inputTensor = TensorImageUtils.bitmapToFloat32Tensor(
+                    smallBitmap,
+                    TensorImageUtils.TORCHVISION_NORM_MEAN_RGB,
+                    TensorImageUtils.TORCHVISION_NORM_STD_RGB
+            );
+            float[] scores = stageOneModule.forward(IValue.from(inputTensor)).toTensor().getDataAsFloatArray();
+            if (scores.length < 2) {
+                Log.w(TAG, "Unexpected stage-one output size: " + scores.length);
+                return 1f;
+            }
+            float prob = softmax2(scores[FIRE_CLASS_INDEX], scores[1]);
+            return Float.isNaN(prob) ? 1f : prob;
+        } finally {
+            smallBitmap.recycle();
+        }
+    }
+
+    static float softmax2(float a, float b) {
         float max = Math.max(a, b);
         double expA = Math.exp(a - max);
         double expB = Math.exp(b - max);
         return (float) (expA / (expA + expB));
     }
 
+    // Runs on the background thread between two frames.
+    private void beginModelProbation(ModelUpdater.Candidate candidate) {
+        float scoreSum = 0f;
+        int scoredStreams = 0;
+        for (CameraStream stream : cameraStreams) {
+            if (stream.detectorState.getHistoryCount() > 0) {
+                scoreSum += stream.detectorState.averageScore();
+                scoredStreams += 1;
+            }
+        }
+        float baselineScore = scoredStreams > 0 ? scoreSum / scoredStreams : -1f;
+        modelProbation = new ModelProbation(
+                modelFrameAvgMs,
+                baselineScore,
+                MODEL_PROBATION_FRAMES,
+                MODEL_MAX_LATENCY_RATIO,
+                MODEL_MAX_SCORE_SHIFT
+        );
+        previousModule = module;
+        probationCandidate = candidate;
+        module = candidate.module;
+        Log.i(TAG, "Swapped in model v" + candidate.version + " on probation");
+    }
+
+    private void updateModelProbation(long latencyMs, float modelScore) {
+        if (modelScore == -1f) {
+            return;
+        }
+        if (modelProbation == null) {
+            modelFrameAvgMs = modelFrameAvgMs <= 0f
+                    ? latencyMs
+                    : modelFrameAvgMs + MODEL_LATENCY_EMA_ALPHA * (latencyMs - modelFrameAvgMs);
+            return;
+        }
+        ModelProbation.Verdict verdict = modelProbation.record(latencyMs, modelScore);
+        if (verdict == ModelProbation.Verdict.PENDING) {
+            return;
+        }
+        if (verdict == ModelProbation.Verdict.ACCEPT) {
+            modelUpdater.promote(probationCandidate);
+            if (previousModule != null) {
+                previousModule.destroy();
+            }
+        } else {
+            module = previousModule;
+            probationCandidate.module.destroy();
+            modelUpdater.reject(probationCandidate, modelProbation.getReason());
+        }
+        previousModule = null;
+        probationCandidate = null;
+        modelProbation = null;
+    }
+
     private void dumpPreprocessedImage(Bitmap bitmap) {
         long timestampMs = System.currentTimeMillis();
         String filename = timestampMs + ".png";
@@ -434,9 +947,6 @@ public class MainActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
         startBackgroundThread();
-        if (!textureView.isAvailable()) {
-            textureView.setSurfaceTextureListener(textureListener);
-        }
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
                 == PackageManager.PERMISSION_GRANTED && textureView.isAvailable()) {
             openCamera();
@@ -447,17 +957,33 @@ public class MainActivity extends AppCompatActivity {
         } else {
             btnProcess.setText("Start monitoring");
         }
+        mainHandler.removeCallbacks(modelUpdateTick);
+        mainHandler.post(modelUpdateTick);
     }
 
     @Override
     protected void onPause() {
+        mainHandler.removeCallbacks(modelUpdateTick);
         stopMonitoring();
         closeCamera();
         stopBackgroundThread();
+        releaseStreams();
         super.onPause();
     }
 
+    @Override
+    protected void onDestroy() {
+        modelUpdater.shutdown();
+        if (stageOneModule != null) {
+            stageOneModule.destroy();
+            stageOneModule = null;
+        }
+        super.onDestroy();
+    }
+
     private void closeCamera() {
+        cameraStreams.clear();
+        frameScheduler.setStreamCount(0);
         if (cameraCaptureSession != null) {
             cameraCaptureSession.close();
             cameraCaptureSession = null;
@@ -466,6 +992,18 @@ public class MainActivity extends AppCompatActivity {
             cameraDevice.close();
             cameraDevice = null;
         }
+        for (CameraStream stream : openedStreams) {
+            stream.closeCamera();
+        }
+    }
+
+    // Runs after the background thread has stopped, so no queued frame still reads an ImageReader
+    // or writes detector state.
+    private void releaseStreams() {
+        for (CameraStream stream : openedStreams) {
+            stream.release();
+        }
+        openedStreams.clear();
     }
 
     private void startMonitoring() {
@@ -481,7 +1019,13 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
         mainHandler.removeCallbacks(monitorTick);
-        consecutiveFireHits = 0;
+    }
+
+    private void resetDetectorState() {
+        for (CameraStream stream : cameraStreams) {
+            stream.detectorState.resetHits();
+            stream.persistState(false);
+        }
     }
 
     private String getOrCreateDeviceId() {
@@ -503,10 +1047,9 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
         if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+            // Otherwise the listener set in onCreate opens the camera once the surface exists.
             if (textureView.isAvailable()) {
                 openCamera();
-            } else {
-                textureView.setSurfaceTextureListener(textureListener);
             }
         } else {
             Toast.makeText(this, "Camera permission is required", Toast.LENGTH_LONG).show();
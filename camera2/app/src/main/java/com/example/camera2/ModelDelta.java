@@ -0,0 +1,94 @@
+package com.example.camera2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Applies a binary model delta produced by the server ({@code server/app/model_updates.py}).
+ *
+ * Format, big-endian: magic "SDLT", u8 format version, u64 target size, then a sequence of
+ * ops: {@code 1 COPY u64 baseOffset u32 length}, {@code 2 INSERT u32 length bytes},
+ * {@code 0 END}. Any inconsistency is reported as an {@link IOException}; the caller still
+ * verifies the result's hash and signature before trusting it.
+ */
+public final class ModelDelta {
+    static final int MAGIC = 0x53444C54; // "SDLT"
+    static final int FORMAT_VERSION = 1;
+    static final int OP_END = 0;
+    static final int OP_COPY = 1;
+    static final int OP_INSERT = 2;
+
+    private ModelDelta() {
+    }
+
+    public static void apply(File base, InputStream delta, File out) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(delta));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a model delta");
+        }
+        int formatVersion = in.readUnsignedByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported delta format: " + formatVersion);
+        }
+        long targetSize = in.readLong();
+
+        byte[] buffer = new byte[64 * 1024];
+        long written = 0;
+        try (RandomAccessFile baseFile = new RandomAccessFile(base, "r");
+             OutputStream os = new BufferedOutputStream(new FileOutputStream(out))) {
+            long baseSize = baseFile.length();
+            while (true) {
+                int op;
+                try {
+                    op = in.readUnsignedByte();
+                } catch (EOFException e) {
+                    throw new IOException("Truncated delta", e);
+                }
+                if (op == OP_END) {
+                    break;
+                }
+                if (op == OP_COPY) {
+                    long offset = in.readLong();
+                    long length = in.readInt() & 0xFFFFFFFFL;
+                    if (offset < 0 || offset + length > baseSize) {
+                        throw new IOException("COPY out of base range: " + offset + "+" + length);
+                    }
+                    baseFile.seek(offset);
+                    while (length > 0) {
+                        int chunk = (int) Math.min(buffer.length, length);
+                        baseFile.readFully(buffer, 0, chunk);
+                        os.write(buffer, 0, chunk);
+                        length -= chunk;
+                        written += chunk;
+                    }
+                } else if (op == OP_INSERT) {
+                    long length = in.readInt() & 0xFFFFFFFFL;
+                    while (length > 0) {
+                        int chunk = (int) Math.min(buffer.length, length);
+                        in.readFully(buffer, 0, chunk);
+                        os.write(buffer, 0, chunk);
+                        length -= chunk;
+                        written += chunk;
+                    }
+                } else {
+                    throw new IOException("Unknown delta op: " + op);
+                }
+                if (written > targetSize) {
+                    throw new IOException("Delta output exceeds target size");
+                }
+            }
+            os.flush();
+        }
+        if (written != targetSize) {
+            throw new IOException("Delta produced " + written + " bytes, expected " + targetSize);
+        }
+    }
+}
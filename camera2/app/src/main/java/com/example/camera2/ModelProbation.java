@@ -0,0 +1,79 @@
+package com.example.camera2;
+
+/**
+ * Watches the first frames after a model swap and decides whether to keep the new model.
+ *
+ * The new model is rejected on any non-finite score, when its mean per-frame latency exceeds
+ * the pre-swap baseline by more than {@code maxLatencyRatio}, or when its mean fire score
+ * drifts above the pre-swap mean by more than {@code maxScoreShift}. A latency baseline of
+ * zero or a negative score baseline disables the corresponding check.
+ */
+public final class ModelProbation {
+    public enum Verdict {
+        PENDING,
+        ACCEPT,
+        REJECT
+    }
+
+    private final float baselineLatencyMs;
+    private final float baselineMeanScore;
+    private final int frames;
+    private final float maxLatencyRatio;
+    private final float maxScoreShift;
+
+    private int seen;
+    private double latencySumMs;
+    private double scoreSum;
+    private Verdict verdict = Verdict.PENDING;
+    private String reason = "";
+
+    public ModelProbation(
+            float baselineLatencyMs,
+            float baselineMeanScore,
+            int frames,
+            float maxLatencyRatio,
+            float maxScoreShift
+    ) {
+        this.baselineLatencyMs = baselineLatencyMs;
+        this.baselineMeanScore = baselineMeanScore;
+        this.frames = Math.max(1, frames);
+        this.maxLatencyRatio = maxLatencyRatio;
+        this.maxScoreShift = maxScoreShift;
+    }
+
+    public synchronized Verdict record(long latencyMs, float fireProb) {
+        if (verdict != Verdict.PENDING) {
+            return verdict;
+        }
+        if (Float.isNaN(fireProb) || Float.isInfinite(fireProb)) {
+            return reject("non-finite score");
+        }
+        seen += 1;
+        latencySumMs += latencyMs;
+        scoreSum += fireProb;
+        if (seen < frames) {
+            return verdict;
+        }
+
+        double meanLatency = latencySumMs / seen;
+        double meanScore = scoreSum / seen;
+        if (baselineLatencyMs > 0 && meanLatency > baselineLatencyMs * maxLatencyRatio) {
+            return reject(String.format("latency %.1fms vs baseline %.1fms", meanLatency, baselineLatencyMs));
+        }
+        if (baselineMeanScore >= 0 && meanScore - baselineMeanScore > maxScoreShift) {
+            return reject(String.format("mean score %.3f vs baseline %.3f", meanScore, baselineMeanScore));
+        }
+        verdict = Verdict.ACCEPT;
+        return verdict;
+    }
+
+    public synchronized String getReason() {
+        return reason;
+    }
+
+    private Verdict reject(String why) {
+        reason = why;
+        verdict = Verdict.REJECT;
+        return verdict;
+    }
+}
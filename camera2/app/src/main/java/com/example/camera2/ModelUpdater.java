@@ -0,0 +1,403 @@
+package com.example.camera2;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.pytorch.IValue;
+import org.pytorch.LiteModuleLoader;
+import org.pytorch.Module;
+import org.pytorch.Tensor;
+import org.pytorch.torchvision.TensorImageUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Pulls new model versions from the server, preferably as a binary delta against the installed
+ * model, verifies hash and signature, then loads the result into a shadow {@link Module} and
+ * checks it against the golden images in {@code assets/golden} before handing it over.
+ *
+ * The candidate only becomes the installed model once the caller {@link #promote promotes}
+ * it after its probation; until then a restart comes back up on the previous model.
+ */
+public final class ModelUpdater {
+    private static final String TAG = "ModelUpdater";
+    static final int BUNDLED_MODEL_VERSION = 1;
+
+    private static final String PREFS_NAME = "sentinel_prefs";
+    private static final String KEY_MODEL_VERSION = "model_version";
+    private static final String KEY_REJECTED_VERSION = "model_rejected_version";
+    private static final String GOLDEN_ASSET_DIR = "golden";
+    private static final int BENCHMARK_RUNS = 3;
+
+    public interface Listener {
+        /** Called on the updater thread with a verified, loaded candidate. */
+        void onCandidateReady(Candidate candidate);
+    }
+
+    public static final class Candidate {
+        final int version;
+        final File file;
+        final Module module;
+        final float benchmarkLatencyMs;
+
+        Candidate(int version, File file, Module module, float benchmarkLatencyMs) {
+            this.version = version;
+            this.file = file;
+            this.module = module;
+            this.benchmarkLatencyMs = benchmarkLatencyMs;
+        }
+    }
+
+    private final Context context;
+    private final OkHttpClient httpClient;
+    private final String baseUrl;
+    private final String apiKey;
+    private final String publicKeyBase64;
+    private final File bundledModelFile;
+    private final long maxLatencyMs;
+    private final File modelsDir;
+    private final File activeFile;
+    private final File candidateFile;
+    private final HandlerThread thread;
+    private final Handler handler;
+    // Set while a candidate is being fetched, checked or on probation.
+    private final AtomicBoolean busy = new AtomicBoolean(false);
+
+    public ModelUpdater(
+            Context context,
+            String baseUrl,
+            String apiKey,
+            String publicKeyBase64,
+            File bundledModelFile,
+            long maxLatencyMs
+    ) {
+        this.context = context.getApplicationContext();
+        this.baseUrl = baseUrl == null ? "" : baseUrl.trim().replaceAll("/+$", "");
+        this.apiKey = apiKey == null ? "" : apiKey;
+        this.publicKeyBase64 = publicKeyBase64 == null ? "" : publicKeyBase64.trim();
+        this.bundledModelFile = bundledModelFile;
+        this.maxLatencyMs = maxLatencyMs;
+        this.modelsDir = new File(context.getFilesDir(), "models");
+        this.activeFile = new File(modelsDir, "active.ptl");
+        this.candidateFile = new File(modelsDir, "candidate.ptl");
+        this.httpClient = new OkHttpClient.Builder()
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .build();
+        this.thread = new HandlerThread("ModelUpdate");
+        this.thread.start();
+        this.handler = new Handler(thread.getLooper());
+    }
+
+    /** The model to load at startup: the last promoted download, else the bundled asset. */
+    public File installedModelFile() {
+        return activeFile.exists() ? activeFile : bundledModelFile;
+    }
+
+    public int installedVersion() {
+        return prefs().getInt(KEY_MODEL_VERSION, BUNDLED_MODEL_VERSION);
+    }
+
+    /** Drops a promoted model that no longer loads; returns false if there was none. */
+    public boolean discardDownloadedModel() {
+        if (!activeFile.exists()) {
+            return false;
+        }
+        Log.w(TAG, "Discarding installed model v" + installedVersion());
+        prefs().edit()
+                .putInt(KEY_REJECTED_VERSION, installedVersion())
+                .putInt(KEY_MODEL_VERSION, BUNDLED_MODEL_VERSION)
+                .apply();
+        return activeFile.delete();
+    }
+
+    public void checkForUpdate(final Listener listener) {
+        if (!busy.compareAndSet(false, true)) {
+            return;
+        }
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                Candidate candidate = null;
+                try {
+                    candidate = fetchCandidate();
+                } catch (Exception e) {
+                    Log.w(TAG, "Model update check failed", e);
+                }
+                if (candidate == null) {
+                    busy.set(false);
+                    return;
+                }
+                listener.onCandidateReady(candidate);
+            }
+        });
+    }
+
+    /** Makes the candidate the installed model. Its module stays owned by the caller. */
+    public void promote(Candidate candidate) {
+        if (!candidate.file.renameTo(activeFile)) {
+            Log.w(TAG, "Failed to install model v" + candidate.version);
+        } else {
+            prefs().edit().putInt(KEY_MODEL_VERSION, candidate.version).apply();
+            Log.i(TAG, "Installed model v" + candidate.version);
+        }
+        busy.set(false);
+    }
+
+    /** Deletes the candidate and never offers this version again. */
+    public void reject(Candidate candidate, String reason) {
+        Log.w(TAG, "Rejected model v" + candidate.version + ": " + reason);
+        if (candidate.file.exists() && !candidate.file.delete()) {
+            Log.w(TAG, "Failed to delete " + candidate.file.getAbsolutePath());
+        }
+        prefs().edit().putInt(KEY_REJECTED_VERSION, candidate.version).apply();
+        busy.set(false);
+    }
+
+    /** Gives up on a candidate for now without blaming it; the verified file is reused next time. */
+    public void abandon(Candidate candidate) {
+        busy.set(false);
+    }
+
+    public void shutdown() {
+        thread.quitSafely();
+    }
+
+    private Candidate fetchCandidate() throws IOException, JSONException, GeneralSecurityException {
+        if (baseUrl.isEmpty() || publicKeyBase64.isEmpty()) {
+            Log.w(TAG, "SERVER_BASE_URL or MODEL_SIGNING_PUBLIC_KEY is empty; skipping model updates.");
+            return null;
+        }
+        JSONObject manifest = fetchManifest();
+        if (manifest == null) {
+            return null;
+        }
+        int version = manifest.getInt("version");
+        String sha256 = manifest.getString("sha256").toLowerCase();
+        long size = manifest.getLong("size");
+        byte[] signature = Base64.getDecoder().decode(manifest.getString("signature"));
+        PublicKey publicKey = ModelVerifier.decodePublicKey(publicKeyBase64);
+        // The version decides what gets installed, so it is only trusted once its signature checks out.
+        String manifestSignature = manifest.optString("manifest_signature", "");
+        if (manifestSignature.isEmpty() || !ModelVerifier.verifySignature(
+                ModelVerifier.canonicalManifest(version, sha256, size),
+                Base64.getDecoder().decode(manifestSignature),
+                publicKey)) {
+            Log.w(TAG, "Manifest for model v" + version + " is unsigned or its signature is invalid; ignoring.");
+            return null;
+        }
+        if (version <= installedVersion() || version == prefs().getInt(KEY_REJECTED_VERSION, 0)) {
+            return null;
+        }
+        File base = installedModelFile();
+        if (base == null || !base.exists()) {
+            Log.w(TAG, "No installed model to update from.");
+            return null;
+        }
+        if (!modelsDir.exists() && !modelsDir.mkdirs()) {
+            throw new IOException("Failed to create " + modelsDir.getAbsolutePath());
+        }
+
+        boolean cached = candidateFile.exists() && sha256.equals(ModelVerifier.sha256Hex(candidateFile));
+        if (!cached) {
+            boolean fromDelta = downloadDelta(version, base);
+            // A bad delta (e.g. a stale one cached by the server) must not block the update.
+            if (fromDelta && !sha256.equals(ModelVerifier.sha256Hex(candidateFile))) {
+                Log.w(TAG, "Model v" + version + " rebuilt from delta has the wrong hash; using full download.");
+                candidateFile.delete();
+                fromDelta = false;
+            }
+            if (!fromDelta && !downloadFull(version)) {
+                return null;
+            }
+        }
+        if (candidateFile.length() != size || !sha256.equals(ModelVerifier.sha256Hex(candidateFile))) {
+            Log.w(TAG, "Model v" + version + " hash mismatch; discarding.");
+            candidateFile.delete();
+            return null;
+        }
+        if (!ModelVerifier.verifySignature(candidateFile, signature, publicKey)) {
+            Log.w(TAG, "Model v" + version + " signature invalid; discarding.");
+            candidateFile.delete();
+            return null;
+        }
+
+        Module shadow = null;
+        float[] latencyMs = new float[1];
+        String failure;
+        try {
+            shadow = LiteModuleLoader.load(candidateFile.getAbsolutePath());
+            failure = checkGoldenImages(shadow, latencyMs);
+        } catch (RuntimeException e) {
+            // PyTorch reports a model that fails to load or run as a RuntimeException. Reject it,
+            // or the verified candidate.ptl would be reloaded (and leaked) on every check.
+            failure = e.toString();
+        } catch (IOException e) {
+            // Unreadable golden assets are not the model's fault; retry later.
+            if (shadow != null) {
+                shadow.destroy();
+            }
+            throw e;
+        }
+        if (failure == null && latencyMs[0] > maxLatencyMs) {
+            failure = String.format("benchmark %.1fms exceeds %dms budget", latencyMs[0], maxLatencyMs);
+        }
+        Candidate candidate = new Candidate(version, candidateFile, shadow, latencyMs[0]);
+        if (failure != null) {
+            if (shadow != null) {
+                shadow.destroy();
+            }
+            reject(candidate, failure);
+            return null;
+        }
+        Log.i(TAG, "Model v" + version + " passed golden checks, benchmark=" + latencyMs[0] + "ms");
+        return candidate;
+    }
+
+    private JSONObject fetchManifest() throws IOException, JSONException {
+        try (Response response = httpClient.newCall(request("/api/v1/models/latest")).execute()) {
+            if (response.code() == 404) {
+                return null;
+            }
+            if (!response.isSuccessful() || response.body() == null) {
+                Log.w(TAG, "Manifest request failed: " + response.code());
+                return null;
+            }
+            return new JSONObject(response.body().string());
+        }
+    }
+
+    private boolean downloadDelta(int version, File base) throws IOException {
+        String sha256 = ModelVerifier.sha256Hex(base);
+        String path = "/api/v1/models/" + version + "/delta?from_sha256=" + sha256;
+        File tmp = new File(modelsDir, "candidate.ptl.tmp");
+        try (Response response = httpClient.newCall(request(path)).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                Log.i(TAG, "No delta for model v" + version + " (" + response.code() + "); using full download.");
+                return false;
+            }
+            ModelDelta.apply(base, body.byteStream(), tmp);
+        } catch (IOException e) {
+            tmp.delete();
+            Log.w(TAG, "Delta for model v" + version + " failed; using full download.", e);
+            return false;
+        }
+        return tmp.renameTo(candidateFile);
+    }
+
+    private boolean downloadFull(int version) throws IOException {
+        File tmp = new File(modelsDir, "candidate.ptl.tmp");
+        try (Response response = httpClient.newCall(request("/api/v1/models/" + version + "/file")).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                Log.w(TAG, "Model v" + version + " download failed: " + response.code());
+                return false;
+            }
+            try (InputStream is = body.byteStream();
+                 FileOutputStream os = new FileOutputStream(tmp)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    os.write(buffer, 0, read);
+                }
+                os.flush();
+            }
+        }
+        return tmp.renameTo(candidateFile);
+    }
+
+    /**
+     * Runs the shadow module on every golden image; each must land on the class its file name
+     * starts with ("fire_" / "nofire_"). Returns a failure reason, or null if all pass.
+     */
+    private String checkGoldenImages(Module shadow, float[] latencyMsOut) throws IOException {
+        String[] names = context.getAssets().list(GOLDEN_ASSET_DIR);
+        if (names == null || names.length == 0) {
+            return "no golden images bundled";
+        }
+        long totalNs = 0;
+        int runs = 0;
+        for (String name : names) {
+            Tensor input;
+            try (InputStream is = context.getAssets().open(GOLDEN_ASSET_DIR + "/" + name)) {
+                Bitmap bitmap = BitmapFactory.decodeStream(is);
+                if (bitmap == null) {
+                    return "undecodable golden image " + name;
+                }
+                input = toInputTensor(bitmap);
+                bitmap.recycle();
+            }
+
+            float fireProb = Float.NaN;
+            shadow.forward(IValue.from(input)); // warm-up, not timed
+            for (int i = 0; i < BENCHMARK_RUNS; i++) {
+                long startNs = System.nanoTime();
+                float[] scores = shadow.forward(IValue.from(input)).toTensor().getDataAsFloatArray();
+                totalNs += System.nanoTime() - startNs;
+                runs += 1;
+                if (scores.length < 2) {
+                    return "unexpected output size " + scores.length;
+                }
+                fireProb = MainActivity.softmax2(scores[MainActivity.FIRE_CLASS_INDEX], scores[1]);
+            }
+            if (Float.isNaN(fireProb) || Float.isInfinite(fireProb)) {
+                return "non-finite score on " + name;
+            }
+            boolean expectFire = name.startsWith("fire_");
+            if (expectFire != (fireProb > 0.5f)) {
+                return "misclassified " + name + " (fire=" + fireProb + ")";
+            }
+        }
+        latencyMsOut[0] = runs == 0 ? 0f : totalNs / 1_000_000f / runs;
+        return null;
+    }
+
+    // Same preprocessing as MainActivity.processBitmap.
+    private static Tensor toInputTensor(Bitmap bitmap) {
+        Bitmap resized = Bitmap.createScaledBitmap(bitmap, 256, 256, true);
+        Bitmap cropped = Bitmap.createBitmap(resized, 16, 16, 224, 224);
+        try {
+            return TensorImageUtils.bitmapToFloat32Tensor(
+                    cropped,
+                    TensorImageUtils.TORCHVISION_NORM_MEAN_RGB,
+                    TensorImageUtils.TORCHVISION_NORM_STD_RGB
+            );
+        } finally {
+            resized.recycle();
+            cropped.recycle();
+        }
+    }
+
+    private Request request(String path) {
+        Request.Builder req = new Request.Builder().url(baseUrl + path).get();
+        if (!apiKey.isEmpty()) {
+            req.header("X-API-Key", apiKey);
+        }
+        return req.build();
+    }
+
+    private SharedPreferences prefs() {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
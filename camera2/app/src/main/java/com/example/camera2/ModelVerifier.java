@@ -0,0 +1,86 @@
+package com.example.camera2;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Hash and signature checks for downloaded models. Models are signed by the publisher with
+ * ECDSA P-256 over SHA-256 of the file contents; the public key ships in the APK.
+ *
+ * The manifest is signed too, over {@link #canonicalManifest}, so its version number cannot
+ * be paired with an older signed model by anyone between the publisher and the node.
+ */
+public final class ModelVerifier {
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+    private ModelVerifier() {
+    }
+
+    public static String sha256Hex(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IOException("SHA-256 unavailable", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = new FileInputStream(file)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /** Decodes a base64 X.509 (SubjectPublicKeyInfo) EC public key. */
+    public static PublicKey decodePublicKey(String base64Der) throws GeneralSecurityException {
+        byte[] der = Base64.getDecoder().decode(base64Der.trim());
+        return KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(der));
+    }
+
+    /** The manifest fields covered by the manifest signature; mirrored by server/app/model_updates.py. */
+    public static byte[] canonicalManifest(int version, String sha256, long size) {
+        String text = "sentinel-model-manifest\n"
+                + "version=" + version + "\n"
+                + "sha256=" + sha256 + "\n"
+                + "size=" + size + "\n";
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static boolean verifySignature(byte[] data, byte[] signature, PublicKey publicKey)
+            throws GeneralSecurityException {
+        Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+        verifier.initVerify(publicKey);
+        verifier.update(data);
+        return verifier.verify(signature);
+    }
+
+    public static boolean verifySignature(File file, byte[] signature, PublicKey publicKey)
+            throws IOException, GeneralSecurityException {
+        Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+        verifier.initVerify(publicKey);
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = new FileInputStream(file)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                verifier.update(buffer, 0, read);
+            }
+        }
+        return verifier.verify(signature);
+    }
+}
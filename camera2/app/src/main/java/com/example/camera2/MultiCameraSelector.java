@@ -0,0 +1,166 @@
+package com.example.camera2;
+
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.os.Build;
+import android.util.Range;
+import android.util.Size;
+import android.util.SizeF;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds extra fields of view that can be captured alongside the primary camera: physical
+ * sub-cameras of a logical multi-camera (one device, one session), or other cameras the
+ * device reports as concurrently streamable.
+ */
+final class MultiCameraSelector {
+    private static final int MIN_READER_WIDTH = 320;
+    private static final int MIN_READER_HEIGHT = 240;
+    // Lenses within this fraction of the preview's field of view see the same scene.
+    private static final double SAME_FOV_TOLERANCE = 0.05;
+
+    private MultiCameraSelector() {
+    }
+
+    /**
+     * Physical sub-cameras that widen what the logical preview already covers, widest first.
+     * Lenses with the preview's field of view, or a narrower one (a telephoto looks at a crop
+     * of the same scene), are skipped: each stream costs a share of the inference budget.
+     */
+    static List<String> physicalSubStreams(CameraManager manager, String logicalId, int max)
+            throws CameraAccessException {
+        if (max <= 0) {
+            return Collections.emptyList();
+        }
+        CameraCharacteristics characteristics = manager.getCameraCharacteristics(logicalId);
+        if (!hasCapability(characteristics,
+                CameraCharacteristics.REQUEST_AVAILABLE_CAPABILITIES_LOGICAL_MULTI_CAMERA)) {
+            return Collections.emptyList();
+        }
+        double logicalFov = horizontalFovDegrees(characteristics);
+        final Map<String, Double> fovById = new HashMap<>();
+        for (String physicalId : characteristics.getPhysicalCameraIds()) {
+            double fov = horizontalFovDegrees(manager.getCameraCharacteristics(physicalId));
+            if (Double.isNaN(fov)) {
+                continue;
+            }
+            if (!Double.isNaN(logicalFov) && fov <= logicalFov * (1 + SAME_FOV_TOLERANCE)) {
+                continue;
+            }
+            fovById.put(physicalId, fov);
+        }
+        List<String> ids = new ArrayList<>(fovById.keySet());
+        Collections.sort(ids, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return Double.compare(fovById.get(b), fovById.get(a));
+            }
+        });
+        return ids.size() > max ? new ArrayList<>(ids.subList(0, max)) : ids;
+    }
+
+    /** Horizontal field of view of the shortest focal length, or NaN if the camera does not report it. */
+    static double horizontalFovDegrees(CameraCharacteristics characteristics) {
+        float[] focalLengths = characteristics.get(CameraCharacteristics.LENS_INFO_AVAILABLE_FOCAL_LENGTHS);
+        SizeF sensorSize = characteristics.get(CameraCharacteristics.SENSOR_INFO_PHYSICAL_SIZE);
+        if (focalLengths == null || focalLengths.length == 0 || sensorSize == null) {
+            return Double.NaN;
+        }
+        float focal = focalLengths[0];
+        for (float f : focalLengths) {
+            focal = Math.min(focal, f);
+        }
+        if (focal <= 0f) {
+            return Double.NaN;
+        }
+        return Math.toDegrees(2 * Math.atan(sensorSize.getWidth() / (2.0 * focal)));
+    }
+
+    static List<String> concurrentPeers(CameraManager manager, String primaryId, int max)
+            throws CameraAccessException {
+        if (max <= 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return Collections.emptyList();
+        }
+        Integer primaryFacing = manager.getCameraCharacteristics(primaryId).get(CameraCharacteristics.LENS_FACING);
+        List<String> best = Collections.emptyList();
+        for (Set<String> combination : manager.getConcurrentCameraIds()) {
+            if (!combination.contains(primaryId)) {
+                continue;
+            }
+            List<String> peers = new ArrayList<>();
+            for (String id : combination) {
+                if (id.equals(primaryId) || peers.size() >= max) {
+                    continue;
+                }
+                Integer facing = manager.getCameraCharacteristics(id).get(CameraCharacteristics.LENS_FACING);
+                if (facing != null && facing.equals(primaryFacing)) {
+                    peers.add(id);
+                }
+            }
+            if (peers.size() > best.size()) {
+                best = peers;
+            }
+        }
+        return best;
+    }
+
+    /** Smallest YUV output that still covers the model's 256px resize step reasonably well. */
+    static Size readerSize(CameraManager manager, String cameraId) throws CameraAccessException {
+        StreamConfigurationMap map = manager.getCameraCharacteristics(cameraId)
+                .get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        Size[] sizes = map == null ? null : map.getOutputSizes(ImageFormat.YUV_420_888);
+        if (sizes == null || sizes.length == 0) {
+            return new Size(640, 480);
+        }
+        Size best = null;
+        for (Size size : sizes) {
+            if (size.getWidth() < MIN_READER_WIDTH || size.getHeight() < MIN_READER_HEIGHT) {
+                continue;
+            }
+            if (best == null || (long) size.getWidth() * size.getHeight() < (long) best.getWidth() * best.getHeight()) {
+                best = size;
+            }
+        }
+        return best != null ? best : sizes[0];
+    }
+
+    /** Lowest AE frame-rate range; off-screen streams only need a fresh frame every few seconds. */
+    static Range<Integer> lowestFpsRange(CameraManager manager, String cameraId) throws CameraAccessException {
+        Range<Integer>[] ranges = manager.getCameraCharacteristics(cameraId)
+                .get(CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES);
+        if (ranges == null || ranges.length == 0) {
+            return null;
+        }
+        Range<Integer> lowest = ranges[0];
+        for (Range<Integer> range : ranges) {
+            if (range.getUpper() < lowest.getUpper()
+                    || (range.getUpper().equals(lowest.getUpper()) && range.getLower() < lowest.getLower())) {
+                lowest = range;
+            }
+        }
+        return lowest;
+    }
+
+    private static boolean hasCapability(CameraCharacteristics characteristics, int capability) {
+        int[] capabilities = characteristics.get(CameraCharacteristics.REQUEST_AVAILABLE_CAPABILITIES);
+        if (capabilities == null) {
+            return false;
+        }
+        for (int c : capabilities) {
+            if (c == capability) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
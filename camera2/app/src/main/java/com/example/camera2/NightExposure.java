@@ -0,0 +1,62 @@
+package com.example.camera2;
+
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.CaptureRequest;
+import android.util.Range;
+
+/**
+ * Switches a repeating request between auto exposure and a manual long-exposure, high-ISO
+ * setting for low-light capture. Cameras without the MANUAL_SENSOR capability stay on auto
+ * exposure; their frames are still stacked.
+ */
+final class NightExposure {
+    static final long NIGHT_EXPOSURE_NS = 250_000_000L;
+
+    private NightExposure() {
+    }
+
+    /** Returns true if manual long exposure was applied, false if the request stays on auto exposure. */
+    static boolean apply(CaptureRequest.Builder builder, CameraCharacteristics characteristics, boolean lowLight) {
+        builder.set(CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
+        if (!lowLight || characteristics == null || !supportsManualSensor(characteristics)) {
+            builder.set(CaptureRequest.CONTROL_AE_MODE, CameraMetadata.CONTROL_AE_MODE_ON);
+            return false;
+        }
+
+        Range<Long> exposureRange = characteristics.get(CameraCharacteristics.SENSOR_INFO_EXPOSURE_TIME_RANGE);
+        Range<Integer> sensitivityRange = characteristics.get(CameraCharacteristics.SENSOR_INFO_SENSITIVITY_RANGE);
+        if (exposureRange == null || sensitivityRange == null) {
+            builder.set(CaptureRequest.CONTROL_AE_MODE, CameraMetadata.CONTROL_AE_MODE_ON);
+            return false;
+        }
+
+        long exposureNs = exposureRange.clamp(NIGHT_EXPOSURE_NS);
+        Long maxFrameDuration = characteristics.get(CameraCharacteristics.SENSOR_INFO_MAX_FRAME_DURATION);
+        if (maxFrameDuration != null) {
+            exposureNs = Math.min(exposureNs, maxFrameDuration);
+        }
+        // Stay at the top of the analog range; digital gain only amplifies noise the stack must remove.
+        Integer maxAnalog = characteristics.get(CameraCharacteristics.SENSOR_MAX_ANALOG_SENSITIVITY);
+        int sensitivity = maxAnalog != null ? sensitivityRange.clamp(maxAnalog) : sensitivityRange.getUpper();
+
+        builder.set(CaptureRequest.CONTROL_AE_MODE, CameraMetadata.CONTROL_AE_MODE_OFF);
+        builder.set(CaptureRequest.SENSOR_EXPOSURE_TIME, exposureNs);
+        builder.set(CaptureRequest.SENSOR_FRAME_DURATION, exposureNs);
+        builder.set(CaptureRequest.SENSOR_SENSITIVITY, sensitivity);
+        return true;
+    }
+
+    private static boolean supportsManualSensor(CameraCharacteristics characteristics) {
+        int[] capabilities = characteristics.get(CameraCharacteristics.REQUEST_AVAILABLE_CAPABILITIES);
+        if (capabilities == null) {
+            return false;
+        }
+        for (int c : capabilities) {
+            if (c == CameraMetadata.REQUEST_AVAILABLE_CAPABILITIES_MANUAL_SENSOR) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.camera2;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts YUV_420_888 planes, as delivered by {@code ImageReader}, to packed ARGB pixels.
+ */
+public final class YuvConverter {
+    private YuvConverter() {
+    }
+
+    public static void yuv420ToArgb(
+            ByteBuffer yPlane,
+            int yRowStride,
+            ByteBuffer uPlane,
+            ByteBuffer vPlane,
+            int uvRowStride,
+            int uvPixelStride,
+            int width,
+            int height,
+            int[] out
+    ) {
+        if (out.length < width * height) {
+            throw new IllegalArgumentException("out too small: " + out.length);
+        }
+        int outIndex = 0;
+        for (int row = 0; row < height; row++) {
+            int yRow = row * yRowStride;
+            int uvRow = (row >> 1) * uvRowStride;
+            for (int col = 0; col < width; col++) {
+                int y = (yPlane.get(yRow + col) & 0xFF) - 16;
+                int uvIndex = uvRow + (col >> 1) * uvPixelStride;
+                int u = (uPlane.get(uvIndex) & 0xFF) - 128;
+                int v = (vPlane.get(uvIndex) & 0xFF) - 128;
+
+                // BT.601 limited range, fixed point with 10 fractional bits.
+                int y1192 = 1192 * Math.max(0, y);
+                int r = clamp((y1192 + 1634 * v) >> 10);
+                int g = clamp((y1192 - 833 * v - 400 * u) >> 10);
+                int b = clamp((y1192 + 2066 * u) >> 10);
+                out[outIndex++] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.camera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CascadeStatsTest {
+    @Test
+    public void emptyStats_areZero() {
+        CascadeStats stats = new CascadeStats();
+        assertEquals(0, stats.getFrames());
+        assertEquals(0f, stats.escalatedFraction(), 0f);
+        assertEquals(0f, stats.averageFrameMs(), 0f);
+        assertEquals(0f, stats.averageEscalatedFrameMs(), 0f);
+    }
+
+    @Test
+    public void tracksEscalatedFractionAndCosts() {
+        CascadeStats stats = new CascadeStats();
+        stats.record(CascadeStats.Outcome.STAGE_ONE_REJECTED, 2);
+        stats.record(CascadeStats.Outcome.STAGE_ONE_REJECTED, 2);
+        stats.record(CascadeStats.Outcome.STAGE_ONE_REJECTED, 4);
+        stats.record(CascadeStats.Outcome.ESCALATED, 40);
+
+        assertEquals(4, stats.getFrames());
+        assertEquals(0.25f, stats.escalatedFraction(), 1e-6f);
+        assertEquals(12f, stats.averageFrameMs(), 1e-6f);
+        assertEquals(40f, stats.averageEscalatedFrameMs(), 1e-6f);
+    }
+
+    @Test
+    public void nightGatedFrames_areCountedApartFromStageOne() {
+        CascadeStats stats = new CascadeStats();
+        stats.record(CascadeStats.Outcome.NIGHT_GATED, 1);
+        stats.record(CascadeStats.Outcome.NIGHT_GATED, 1);
+        stats.record(CascadeStats.Outcome.STAGE_ONE_REJECTED, 4);
+        stats.record(CascadeStats.Outcome.ESCALATED, 40);
+
+        assertEquals(4, stats.getFrames());
+        assertEquals(2, stats.getNightGatedFrames());
+        // Night-gated frames neither dilute the escalation rate nor the stage-one cost.
+        assertEquals(0.5f, stats.escalatedFraction(), 1e-6f);
+        assertEquals(22f, stats.averageFrameMs(), 1e-6f);
+    }
+}
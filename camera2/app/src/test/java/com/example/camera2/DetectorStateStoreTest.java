@@ -0,0 +1,191 @@
+package com.example.camera2;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class DetectorStateStoreTest {
+    // Mirrors the file layout: 8-byte header, then two slots of generation(8) crc(4) payload.
+    private static final int HEADER_SIZE = 8;
+    private static final int SLOT_SIZE = 8 + 4 + 4 + 8 + 8 + 8 + 4 + 4 * DetectorState.SCORE_HISTORY_SIZE;
+
+    @Test
+    public void save_thenReopen_restoresState() throws IOException {
+        File path = tempFile();
+        try {
+            DetectorState state = new DetectorState();
+            state.recordScore(0.9f, true, 1_000L);
+            state.markAlertUploaded(1_500L);
+            state.recordScore(0.85f, true, 2_000L);
+            state.recordScore(0.95f, true, 3_000L);
+            state.setSamplePeriodMs(12_000L);
+            saveAndClose(path, state);
+
+            DetectorState restored = new DetectorState();
+            DetectorStateStore store = new DetectorStateStore(path);
+            try {
+                assertTrue(store.load(restored));
+            } finally {
+                store.close();
+            }
+            assertEquals(2, restored.getConsecutiveFireHits());
+            assertEquals(1_500L, restored.getLastAlertUploadMs());
+            assertEquals(3_000L, restored.getLastUpdateMs());
+            assertEquals(12_000L, restored.getSamplePeriodMs());
+            float[] history = new float[DetectorState.SCORE_HISTORY_SIZE];
+            assertEquals(3, restored.copyScoreHistory(history));
+            assertEquals(0.9f, history[0], 0f);
+            assertEquals(0.95f, history[2], 0f);
+        } finally {
+            path.delete();
+        }
+    }
+
+    @Test
+    public void load_fallsBackToOlderSlotWhenNewerIsTorn() throws IOException {
+        File path = tempFile();
+        try {
+            DetectorState state = new DetectorState();
+            DetectorStateStore store = new DetectorStateStore(path);
+            state.recordScore(0.9f, true, 1_000L);
+            store.save(state);  // generation 1 -> slot 1
+            state.recordScore(0.9f, true, 2_000L);
+            store.save(state);  // generation 2 -> slot 0
+            store.close();
+
+            // Damage the hit count in the newer slot's payload; its CRC no longer matches.
+            corruptByte(path, HEADER_SIZE + 12);
+
+            DetectorState restored = new DetectorState();
+            store = new DetectorStateStore(path);
+            try {
+                assertTrue(store.load(restored));
+            } finally {
+                store.close();
+            }
+            assertEquals(1, restored.getConsecutiveFireHits());
+            assertEquals(1_000L, restored.getLastUpdateMs());
+        } finally {
+            path.delete();
+        }
+    }
+
+    @Test
+    public void load_returnsFalseWhenBothSlotsAreTorn() throws IOException {
+        File path = tempFile();
+        try {
+            DetectorState state = new DetectorState();
+            DetectorStateStore store = new DetectorStateStore(path);
+            state.recordScore(0.5f, false, 1_000L);
+            store.save(state);
+            store.save(state);
+            store.close();
+
+            corruptByte(path, HEADER_SIZE + 12);
+            corruptByte(path, HEADER_SIZE + SLOT_SIZE + 12);
+
+            store = new DetectorStateStore(path);
+            try {
+                assertFalse(store.load(new DetectorState()));
+            } finally {
+                store.close();
+            }
+        } finally {
+            path.delete();
+        }
+    }
+
+    @Test
+    public void open_resetsFileWithWrongMagic() throws IOException {
+        assertHeaderMismatchResets(0);
+    }
+
+    @Test
+    public void open_resetsFileWithWrongVersion() throws IOException {
+        assertHeaderMismatchResets(4);
+    }
+
+    @Test
+    public void scoreHistory_wrapsAroundAndSurvivesReload() throws IOException {
+        int size = DetectorState.SCORE_HISTORY_SIZE;
+        DetectorState state = new DetectorState();
+        for (int i = 0; i < size + 5; i++) {
+            state.recordScore(i / 100f, false, i);
+        }
+        float[] history = new float[size];
+        assertEquals(size, state.copyScoreHistory(history));
+        assertEquals(5 / 100f, history[0], 0f);
+        assertEquals((size + 4) / 100f, history[size - 1], 0f);
+
+        File path = tempFile();
+        try {
+            saveAndClose(path, state);
+            DetectorState restored = new DetectorState();
+            DetectorStateStore store = new DetectorStateStore(path);
+            try {
+                assertTrue(store.load(restored));
+            } finally {
+                store.close();
+            }
+            float[] restoredHistory = new float[size];
+            assertEquals(size, restored.copyScoreHistory(restoredHistory));
+            assertArrayEquals(history, restoredHistory, 0f);
+
+            // The next score after a reload evicts the oldest entry.
+            restored.recordScore(0.99f, false, size + 5);
+            restored.copyScoreHistory(restoredHistory);
+            assertEquals(6 / 100f, restoredHistory[0], 0f);
+            assertEquals(0.99f, restoredHistory[size - 1], 0f);
+        } finally {
+            path.delete();
+        }
+    }
+
+    private static void assertHeaderMismatchResets(int headerOffset) throws IOException {
+        File path = tempFile();
+        try {
+            DetectorState state = new DetectorState();
+            state.recordScore(0.9f, true, 1_000L);
+            saveAndClose(path, state);
+            corruptByte(path, headerOffset);
+
+            DetectorStateStore store = new DetectorStateStore(path);
+            try {
+                assertFalse(store.load(new DetectorState()));
+                // The store is usable again after the reset.
+                store.save(state);
+                assertTrue(store.load(new DetectorState()));
+            } finally {
+                store.close();
+            }
+        } finally {
+            path.delete();
+        }
+    }
+
+    private static File tempFile() throws IOException {
+        File path = File.createTempFile("detector_state", ".bin");
+        // An empty file is treated like a missing one and initialised on open.
+        assertTrue(path.delete());
+        return path;
+    }
+
+    private static void saveAndClose(File path, DetectorState state) throws IOException {
+        DetectorStateStore store = new DetectorStateStore(path);
+        store.save(state);
+        store.close();
+    }
+
+    private static void corruptByte(File path, long offset) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(path, "rw")) {
+            raf.seek(offset);
+            int b = raf.read();
+            raf.seek(offset);
+            raf.write(b ^ 0xFF);
+        }
+    }
+}
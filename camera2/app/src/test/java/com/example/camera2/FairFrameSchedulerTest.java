@@ -0,0 +1,61 @@
+package com.example.camera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FairFrameSchedulerTest {
+    @Test
+    public void pickNext_isRoundRobin() {
+        FairFrameScheduler scheduler = new FairFrameScheduler(5_000, 0.5f);
+        assertEquals(-1, scheduler.pickNext());
+
+        scheduler.setStreamCount(3);
+        assertEquals(0, scheduler.pickNext());
+        assertEquals(1, scheduler.pickNext());
+        assertEquals(2, scheduler.pickNext());
+        assertEquals(0, scheduler.pickNext());
+    }
+
+    @Test
+    public void setStreamCount_keepsCursorInRange() {
+        FairFrameScheduler scheduler = new FairFrameScheduler(5_000, 0.5f);
+        scheduler.setStreamCount(3);
+        scheduler.pickNext();
+        scheduler.pickNext();
+
+        scheduler.setStreamCount(2);
+        assertEquals(0, scheduler.pickNext());
+        assertEquals(1, scheduler.pickNext());
+    }
+
+    @Test
+    public void nextDelayMs_splitsIntervalAcrossStreams() {
+        FairFrameScheduler scheduler = new FairFrameScheduler(6_000, 0.5f);
+        scheduler.setStreamCount(3);
+        scheduler.recordInference(100);
+
+        assertEquals(2_000, scheduler.nextDelayMs());
+        assertEquals(6_000, scheduler.perStreamPeriodMs());
+    }
+
+    @Test
+    public void nextDelayMs_stretchesToStayWithinDutyCycle() {
+        FairFrameScheduler scheduler = new FairFrameScheduler(6_000, 0.5f);
+        scheduler.setStreamCount(3);
+        scheduler.recordInference(1_500);
+
+        // 1.5 s of inference at a 50% duty cycle needs a 3 s tick, so each stream waits 9 s.
+        assertEquals(3_000, scheduler.nextDelayMs());
+        assertEquals(9_000, scheduler.perStreamPeriodMs());
+    }
+
+    @Test
+    public void recordInference_smoothsSpikes() {
+        FairFrameScheduler scheduler = new FairFrameScheduler(6_000, 0.5f);
+        scheduler.recordInference(100);
+        scheduler.recordInference(1_100);
+
+        assertEquals(300f, scheduler.getAverageInferenceMs(), 1e-3f);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.camera2;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrameStackerTest {
+    private static int rgb(int r, int g, int b) {
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    @Test
+    public void averageInto_returnsFalseWhenEmpty() {
+        FrameStacker stacker = new FrameStacker(2, 2, 4);
+        assertFalse(stacker.averageInto(new int[4]));
+    }
+
+    @Test
+    public void averageInto_isPerChannelMean() {
+        FrameStacker stacker = new FrameStacker(2, 1, 4);
+        stacker.add(new int[]{rgb(10, 20, 30), rgb(0, 0, 0)});
+        stacker.add(new int[]{rgb(30, 40, 50), rgb(255, 255, 255)});
+
+        int[] out = new int[2];
+        assertTrue(stacker.averageInto(out));
+        assertEquals(rgb(20, 30, 40), out[0]);
+        assertEquals(rgb(128, 128, 128), out[1]);
+        assertEquals(2, stacker.getFrameCount());
+    }
+
+    @Test
+    public void add_decaysOldFramesOnceFull() {
+        FrameStacker stacker = new FrameStacker(1, 1, 2);
+        stacker.add(new int[]{rgb(0, 0, 0)});
+        stacker.add(new int[]{rgb(0, 0, 0)});
+        stacker.add(new int[]{rgb(200, 200, 200)});
+
+        int[] out = new int[1];
+        stacker.averageInto(out);
+        assertEquals(2, stacker.getFrameCount());
+        assertEquals(rgb(100, 100, 100), out[0]);
+    }
+
+    @Test
+    public void stacking_reducesNoise() {
+        int pixels = 64 * 64;
+        int frames = 8;
+        FrameStacker stacker = new FrameStacker(64, 64, frames);
+        Random random = new Random(42);
+        int[] frame = new int[pixels];
+        int[] single = new int[pixels];
+        for (int f = 0; f < frames; f++) {
+            for (int i = 0; i < pixels; i++) {
+                int v = Math.max(0, Math.min(255, (int) Math.round(60 + 20 * random.nextGaussian())));
+                frame[i] = rgb(v, v, v);
+            }
+            if (f == 0) {
+                System.arraycopy(frame, 0, single, 0, pixels);
+            }
+            stacker.add(frame);
+        }
+
+        int[] stacked = new int[pixels];
+        stacker.averageInto(stacked);
+        assertTrue(stdDevOfRed(stacked) < stdDevOfRed(single) / 2);
+    }
+
+    @Test
+    public void reset_clearsStack() {
+        FrameStacker stacker = new FrameStacker(1, 1, 4);
+        stacker.add(new int[]{rgb(9, 9, 9)});
+        stacker.reset();
+        assertEquals(0, stacker.getFrameCount());
+        assertFalse(stacker.averageInto(new int[1]));
+    }
+
+    private static double stdDevOfRed(int[] argb) {
+        double sum = 0;
+        double sumSq = 0;
+        for (int p : argb) {
+            int r = (p >> 16) & 0xFF;
+            sum += r;
+            sumSq += r * r;
+        }
+        double mean = sum / argb.length;
+        return Math.sqrt(sumSq / argb.length - mean * mean);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.camera2;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LowLightDetectorTest {
+    private static int rgb(int r, int g, int b) {
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    @Test
+    public void update_entersAndLeavesWithHysteresis() {
+        LowLightDetector detector = new LowLightDetector(35f, 200f, 60f, 2);
+
+        assertFalse(detector.update(20f, false));
+        assertTrue(detector.update(20f, false));
+        assertTrue(detector.isLowLight());
+
+        // Bright-looking long exposures below the exit threshold keep night mode.
+        assertFalse(detector.update(150f, true));
+        assertFalse(detector.update(220f, true));
+        assertFalse(detector.update(150f, true));
+        assertTrue(detector.isLowLight());
+
+        assertFalse(detector.update(230f, true));
+        assertTrue(detector.update(230f, true));
+        assertFalse(detector.isLowLight());
+    }
+
+    @Test
+    public void update_leavesAtAutoThresholdWithoutManualExposure() {
+        LowLightDetector detector = new LowLightDetector(35f, 200f, 60f, 2);
+        detector.update(20f, false);
+        detector.update(20f, false);
+        assertTrue(detector.isLowLight());
+
+        // An auto-exposed daylight scene never reaches the manual exit threshold.
+        assertFalse(detector.update(120f, false));
+        assertTrue(detector.update(120f, false));
+        assertFalse(detector.isLowLight());
+    }
+
+    @Test
+    public void update_autoThresholdDoesNotApplyUnderManualExposure() {
+        LowLightDetector detector = new LowLightDetector(35f, 200f, 60f, 1);
+        assertTrue(detector.update(20f, false));
+
+        assertFalse(detector.update(120f, true));
+        assertTrue(detector.isLowLight());
+    }
+
+    @Test
+    public void meanLuma_ofGrayFrame() {
+        int[] frame = new int[16];
+        Arrays.fill(frame, rgb(100, 100, 100));
+        assertEquals(100f, LowLightDetector.meanLuma(frame, frame.length, 4), 1f);
+    }
+
+    @Test
+    public void hotSpotFraction_countsBrightRedPixelsOnly() {
+        int[] frame = new int[100];
+        Arrays.fill(frame, rgb(20, 20, 25));
+        frame[0] = rgb(255, 180, 60);   // glowing flame
+        frame[1] = rgb(240, 240, 250);  // bright but white, e.g. a lamp
+        frame[2] = rgb(60, 20, 10);     // red but dark
+
+        float mean = LowLightDetector.meanLuma(frame, frame.length, 1);
+        assertEquals(0.01f, LowLightDetector.hotSpotFraction(frame, frame.length, mean, 60), 1e-6f);
+    }
+
+    @Test
+    public void hotSpotFraction_countsSaturatedFlameCore() {
+        int[] frame = new int[100];
+        Arrays.fill(frame, rgb(20, 20, 25));
+        // Blown-out core ringed by a red glow, as a flame looks under a 250 ms high-ISO exposure.
+        frame[0] = rgb(255, 255, 255);
+        frame[1] = rgb(255, 254, 250);
+        frame[2] = rgb(255, 160, 60);
+
+        float mean = LowLightDetector.meanLuma(frame, frame.length, 1);
+        assertEquals(0.03f, LowLightDetector.hotSpotFraction(frame, frame.length, mean, 60), 1e-6f);
+    }
+
+    @Test
+    public void hotSpotFraction_ignoresClippedPixelsInBrightScene() {
+        int[] frame = new int[100];
+        Arrays.fill(frame, rgb(230, 230, 230));
+        frame[0] = rgb(255, 255, 255);
+
+        // Clipped, but not above the scene mean by the minimum contrast.
+        float mean = LowLightDetector.meanLuma(frame, frame.length, 1);
+        assertEquals(0f, LowLightDetector.hotSpotFraction(frame, frame.length, mean, 60), 0f);
+    }
+}
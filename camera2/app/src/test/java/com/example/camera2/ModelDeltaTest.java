@@ -0,0 +1,103 @@
+package com.example.camera2;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class ModelDeltaTest {
+    private static final byte[] BASE = "0123456789abcdefghij".getBytes();
+
+    @Test
+    public void apply_copiesAndInserts() throws IOException {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        DataOutputStream out = header(delta, 13);
+        copy(out, 10, 6);
+        insert(out, "-new-");
+        copy(out, 0, 2);
+        out.writeByte(ModelDelta.OP_END);
+
+        assertEquals("abcdef-new-01", new String(applyToBase(delta.toByteArray())));
+    }
+
+    @Test
+    public void apply_rejectsCopyOutsideBase() throws IOException {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        DataOutputStream out = header(delta, 10);
+        copy(out, 15, 10);
+        out.writeByte(ModelDelta.OP_END);
+
+        assertApplyFails(delta.toByteArray());
+    }
+
+    @Test
+    public void apply_rejectsWrongTargetSize() throws IOException {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        DataOutputStream out = header(delta, 99);
+        copy(out, 0, 4);
+        out.writeByte(ModelDelta.OP_END);
+
+        assertApplyFails(delta.toByteArray());
+    }
+
+    @Test
+    public void apply_rejectsTruncatedDelta() throws IOException {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        DataOutputStream out = header(delta, 4);
+        copy(out, 0, 4);
+
+        assertApplyFails(delta.toByteArray());
+    }
+
+    private static DataOutputStream header(ByteArrayOutputStream sink, long targetSize) throws IOException {
+        DataOutputStream out = new DataOutputStream(sink);
+        out.writeInt(ModelDelta.MAGIC);
+        out.writeByte(ModelDelta.FORMAT_VERSION);
+        out.writeLong(targetSize);
+        return out;
+    }
+
+    private static void copy(DataOutputStream out, long offset, int length) throws IOException {
+        out.writeByte(ModelDelta.OP_COPY);
+        out.writeLong(offset);
+        out.writeInt(length);
+    }
+
+    private static void insert(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes();
+        out.writeByte(ModelDelta.OP_INSERT);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] applyToBase(byte[] delta) throws IOException {
+        File base = File.createTempFile("base", ".ptl");
+        File target = File.createTempFile("target", ".ptl");
+        try {
+            try (FileOutputStream os = new FileOutputStream(base)) {
+                os.write(BASE);
+            }
+            ModelDelta.apply(base, new ByteArrayInputStream(delta), target);
+            return Files.readAllBytes(target.toPath());
+        } finally {
+            base.delete();
+            target.delete();
+        }
+    }
+
+    private static void assertApplyFails(byte[] delta) {
+        try {
+            applyToBase(delta);
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+}
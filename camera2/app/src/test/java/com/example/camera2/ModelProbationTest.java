@@ -0,0 +1,68 @@
+package com.example.camera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ModelProbationTest {
+    private static ModelProbation.Verdict feed(ModelProbation probation, int frames, long latencyMs, float score) {
+        ModelProbation.Verdict verdict = ModelProbation.Verdict.PENDING;
+        for (int i = 0; i < frames; i++) {
+            verdict = probation.record(latencyMs, score);
+        }
+        return verdict;
+    }
+
+    @Test
+    public void record_acceptsAfterAllFramesWithinBounds() {
+        ModelProbation probation = new ModelProbation(100f, 0.2f, 3, 1.5f, 0.3f);
+        assertEquals(ModelProbation.Verdict.PENDING, probation.record(120, 0.25f));
+        assertEquals(ModelProbation.Verdict.PENDING, probation.record(140, 0.3f));
+        assertEquals(ModelProbation.Verdict.ACCEPT, probation.record(130, 0.35f));
+
+        // The verdict is final.
+        assertEquals(ModelProbation.Verdict.ACCEPT, probation.record(10_000, 1f));
+    }
+
+    @Test
+    public void record_rejectsNonFiniteScoreImmediately() {
+        ModelProbation probation = new ModelProbation(100f, 0.2f, 30, 1.5f, 0.3f);
+        assertEquals(ModelProbation.Verdict.REJECT, probation.record(100, Float.NaN));
+        assertEquals("non-finite score", probation.getReason());
+
+        probation = new ModelProbation(100f, 0.2f, 30, 1.5f, 0.3f);
+        assertEquals(ModelProbation.Verdict.REJECT, probation.record(100, Float.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void record_rejectsSlowModel() {
+        ModelProbation probation = new ModelProbation(100f, 0.2f, 4, 1.5f, 0.3f);
+        assertEquals(ModelProbation.Verdict.REJECT, feed(probation, 4, 160, 0.2f));
+        assertTrue(probation.getReason().startsWith("latency"));
+    }
+
+    @Test
+    public void record_rejectsUpwardScoreShift() {
+        ModelProbation probation = new ModelProbation(100f, 0.2f, 4, 1.5f, 0.3f);
+        assertEquals(ModelProbation.Verdict.REJECT, feed(probation, 4, 100, 0.6f));
+        assertTrue(probation.getReason().startsWith("mean score"));
+    }
+
+    @Test
+    public void record_allowsDownwardScoreShift() {
+        ModelProbation probation = new ModelProbation(100f, 0.8f, 4, 1.5f, 0.3f);
+        assertEquals(ModelProbation.Verdict.ACCEPT, feed(probation, 4, 100, 0.1f));
+    }
+
+    @Test
+    public void zeroLatencyBaseline_disablesLatencyCheck() {
+        ModelProbation probation = new ModelProbation(0f, 0.2f, 4, 1.5f, 0.3f);
+        assertEquals(ModelProbation.Verdict.ACCEPT, feed(probation, 4, 10_000, 0.2f));
+    }
+
+    @Test
+    public void negativeScoreBaseline_disablesScoreCheck() {
+        ModelProbation probation = new ModelProbation(100f, -1f, 4, 1.5f, 0.3f);
+        assertEquals(ModelProbation.Verdict.ACCEPT, feed(probation, 4, 100, 0.99f));
+    }
+}
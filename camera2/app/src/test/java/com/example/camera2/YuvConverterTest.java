@@ -0,0 +1,80 @@
+package com.example.camera2;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class YuvConverterTest {
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    public void yuv420ToArgb_skipsRowPaddingInPlanarLayout() {
+        int width = 4;
+        int height = 2;
+        int yRowStride = 8;
+        // Each row is black, black, white, white; the gray padding after it must never be read.
+        byte[] y = filled(yRowStride * height, 128);
+        for (int row = 0; row < height; row++) {
+            y[row * yRowStride] = 16;
+            y[row * yRowStride + 1] = 16;
+            y[row * yRowStride + 2] = (byte) 255;
+            y[row * yRowStride + 3] = (byte) 255;
+        }
+        int uvRowStride = 4;
+        byte[] u = filled(uvRowStride, 128);
+        byte[] v = filled(uvRowStride, 128);
+        u[2] = 0;  // padding
+
+        int[] out = new int[width * height];
+        YuvConverter.yuv420ToArgb(ByteBuffer.wrap(y), yRowStride, ByteBuffer.wrap(u), ByteBuffer.wrap(v),
+                uvRowStride, 1, width, height, out);
+
+        assertArrayEquals(new int[]{BLACK, BLACK, WHITE, WHITE, BLACK, BLACK, WHITE, WHITE}, out);
+    }
+
+    @Test
+    public void yuv420ToArgb_readsInterleavedChromaWithPixelStride() {
+        int width = 4;
+        int height = 2;
+        byte[] y = filled(width * height, 126);
+        // NV21-style interleaving: U and V views into one buffer with pixel stride 2.
+        byte[] vu = new byte[]{(byte) 128, (byte) 128, (byte) 240, (byte) 128};
+        ByteBuffer v = ByteBuffer.wrap(vu, 0, vu.length);
+        ByteBuffer u = ByteBuffer.wrap(Arrays.copyOfRange(vu, 1, vu.length));
+
+        int[] out = new int[width * height];
+        YuvConverter.yuv420ToArgb(ByteBuffer.wrap(y), width, u, v, 4, 2, width, height, out);
+
+        // Left 2x2 block is neutral gray; the right block has high V, so it turns red.
+        assertEquals(out[0], out[1]);
+        assertEquals(out[0], out[4]);
+        int gray = out[0] & 0xFF;
+        assertEquals(gray, (out[0] >> 16) & 0xFF);
+        int right = out[2];
+        assertEquals(right, out[7]);
+        assertTrue(((right >> 16) & 0xFF) > 200);
+        assertTrue(((right >> 8) & 0xFF) < gray);
+    }
+
+    @Test
+    public void yuv420ToArgb_rejectsSmallOutput() {
+        byte[] plane = new byte[16];
+        try {
+            YuvConverter.yuv420ToArgb(ByteBuffer.wrap(plane), 4, ByteBuffer.wrap(plane), ByteBuffer.wrap(plane),
+                    2, 1, 4, 4, new int[15]);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+}
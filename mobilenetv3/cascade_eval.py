@@ -0,0 +1,168 @@
+import argparse
+import json
+import os
+import sys
+import time
+
+import torch
+import torch.nn as nn
+from torchvision import datasets, models, transforms
+
+from tiny_fire import HOLDOUT_FRACTION, HOLDOUT_SEED, TinyFireNet, holdout_dataset, \
+    data_transforms as tiny_transforms
+
+# Replays the on-device cascade: the tiny stage-one model scores every image and
+# MobileNetV3-Small only runs when that score reaches the escalation threshold.
+#
+# The threshold is chosen on the holdout that tiny_fire.py kept out of its training split: the
+# highest one that filters out no holdout fire. dataset/val is only used afterwards, to report
+# recall against the full model alone, the fraction of frames escalated and the average cost at
+# that threshold. The full model was trained on all of dataset/train, so its holdout scores are
+# optimistic; that is why the holdout criterion counts fire labels rather than full-model hits.
+
+full_transform = transforms.Compose([
+    transforms.Resize(256),
+    transforms.CenterCrop(224),
+    transforms.ToTensor(),
+    transforms.Normalize([0.485, 0.456, 0.406], [0.229, 0.224, 0.225])
+])
+
+
+class BothInputs:
+    def __call__(self, image):
+        return full_transform(image), tiny_transforms['val'](image)
+
+
+def mean_forward_ms(model, example, runs=50):
+    """Single-image CPU latency, matching the one-frame-at-a-time on-device path."""
+    with torch.no_grad():
+        for _ in range(5):
+            model(example)
+        start = time.perf_counter()
+        for _ in range(runs):
+            model(example)
+    return (time.perf_counter() - start) * 1000.0 / runs
+
+
+def score(full, tiny, dataset, fire_idx):
+    loader = torch.utils.data.DataLoader(dataset, batch_size=32, shuffle=False, num_workers=0)
+    full_probs, tiny_probs, labels = [], [], []
+    with torch.no_grad():
+        for (full_in, tiny_in), target in loader:
+            full_probs.append(torch.softmax(full(full_in), dim=1)[:, fire_idx])
+            tiny_probs.append(torch.softmax(tiny(tiny_in), dim=1)[:, fire_idx])
+            labels.append(target)
+    return torch.cat(full_probs), torch.cat(tiny_probs), torch.cat(labels) == fire_idx
+
+
+def cascade_row(full_detect, tiny_probs, is_fire, threshold, tiny_ms, full_ms):
+    escalated = tiny_probs >= threshold
+    detect = escalated & full_detect
+    fires = int(is_fire.sum())
+    avg_ms = tiny_ms + float(escalated.float().mean()) * full_ms
+    return {
+        'escalated': float(escalated.float().mean()),
+        'recall': int((detect & is_fire).sum()) / max(1, fires),
+        # Fire images stage one filtered out, whatever the full model would have said.
+        'filtered_fires': int((is_fire & ~escalated).sum()),
+        # Fires the full model would have caught but the tiny model filtered out.
+        'missed_vs_full': int((full_detect & is_fire & ~escalated).sum()),
+        'false_pos': int((detect & ~is_fire).sum()),
+        'avg_ms': avg_ms,
+        'cost_vs_full': avg_ms / full_ms,
+    }
+
+
+def evaluate(full_path, tiny_path, data_dir, fire_threshold, thresholds,
+             holdout_fraction=HOLDOUT_FRACTION, seed=HOLDOUT_SEED, config_path=None):
+    holdout, class_to_idx = holdout_dataset(data_dir, BothInputs(), holdout_fraction, seed)
+    val = datasets.ImageFolder(os.path.join(data_dir, "val"), BothInputs())
+    fire_idx = class_to_idx['fire']
+    num_classes = len(class_to_idx)
+
+    full = models.mobilenet_v3_small(weights=None)
+    full.classifier[3] = nn.Linear(full.classifier[3].in_features, num_classes)
+    full.load_state_dict(torch.load(full_path, map_location="cpu"))
+    full.eval()
+    tiny = TinyFireNet(num_classes=num_classes)
+    tiny.load_state_dict(torch.load(tiny_path, map_location="cpu"))
+    tiny.eval()
+
+    torch.set_num_threads(1)
+    full_ms = mean_forward_ms(full, torch.zeros(1, 3, 224, 224))
+    tiny_ms = mean_forward_ms(tiny, torch.zeros(1, 3, 64, 64))
+    print(f"Per-image CPU cost: full {full_ms:.2f} ms, tiny {tiny_ms:.2f} ms")
+    print()
+
+    # 1. Pick the threshold on the holdout.
+    full_probs, tiny_probs, is_fire = score(full, tiny, holdout, fire_idx)
+    full_detect = full_probs >= fire_threshold
+    fires = int(is_fire.sum())
+    print(f"Holdout images (from train/): {len(is_fire)} ({fires} fire)")
+    print("threshold\tescalated\tfiltered_fires\tavg_ms\tcost_vs_full")
+    chosen = None
+    for threshold in thresholds:
+        row = cascade_row(full_detect, tiny_probs, is_fire, threshold, tiny_ms, full_ms)
+        print(f"{threshold:.2f}\t{row['escalated']:.3f}\t{row['filtered_fires']}\t"
+              f"{row['avg_ms']:.2f}\t{row['cost_vs_full']:.3f}")
+        if row['filtered_fires'] == 0 and (chosen is None or threshold > chosen):
+            chosen = threshold
+    print()
+    if chosen is None:
+        print("Every threshold filters out a holdout fire; retrain the tiny model with a higher --fire-weight.")
+        return 1
+    print(f"Chosen on holdout: {chosen:.2f}")
+    print()
+
+    # 2. Report that one threshold on val.
+    full_probs, tiny_probs, is_fire = score(full, tiny, val, fire_idx)
+    full_detect = full_probs >= fire_threshold
+    fires = int(is_fire.sum())
+    full_recall = int((full_detect & is_fire).sum()) / max(1, fires)
+    row = cascade_row(full_detect, tiny_probs, is_fire, chosen, tiny_ms, full_ms)
+    print(f"Validation images: {len(is_fire)} ({fires} fire)")
+    print(f"Full model alone @ {fire_threshold:.2f}: recall {full_recall:.4f}, "
+          f"false positives {int((full_detect & ~is_fire).sum())}")
+    print(f"Cascade @ {chosen:.2f}: recall {row['recall']:.4f}, missed vs full {row['missed_vs_full']}, "
+          f"false positives {row['false_pos']}, escalated {row['escalated']:.3f}, "
+          f"avg {row['avg_ms']:.2f} ms ({row['cost_vs_full']:.3f} of full)")
+
+    if row['missed_vs_full'] > 0:
+        print("The cascade loses recall on val; not writing the config. Retrain the tiny model.")
+        return 1
+    if config_path:
+        with open(config_path, "w") as f:
+            json.dump({
+                "escalation_threshold": chosen,
+                "fire_threshold": fire_threshold,
+                "val_recall": row['recall'],
+                "val_full_recall": full_recall,
+                "val_escalated": row['escalated'],
+                "val_cost_vs_full": row['cost_vs_full'],
+            }, f, indent=2)
+            f.write("\n")
+        print(f"Wrote {os.path.abspath(config_path)}")
+    return 0
+
+
+if __name__ == '__main__':
+    parser = argparse.ArgumentParser(description="Pick the cascade threshold on a train holdout; report it on val.")
+    parser.add_argument("--model", default="forest_fire_classifier_mobilenetv3_small.pth",
+                        help="Full MobileNetV3-Small weights (.pth).")
+    parser.add_argument("--tiny-model", default="fire_stage1_tiny64.pth", help="Stage-one weights (.pth).")
+    parser.add_argument("--data-dir", default="./dataset/", help="Dataset root containing train/ and val/.")
+    parser.add_argument("--fire-threshold", type=float, default=0.80,
+                        help="Full-model fire threshold (matches FIRE_CONFIDENCE_THRESHOLD on Android).")
+    parser.add_argument("--thresholds", default="0.02,0.05,0.10,0.15,0.20,0.30,0.50",
+                        help="Comma-separated stage-one escalation thresholds to sweep.")
+    parser.add_argument("--holdout-fraction", type=float, default=HOLDOUT_FRACTION,
+                        help="Must match the value the tiny model was trained with.")
+    parser.add_argument("--seed", type=int, default=HOLDOUT_SEED,
+                        help="Must match the value the tiny model was trained with.")
+    parser.add_argument("--write-config", nargs="?", const="../camera2/app/src/main/assets/fire_stage1_tiny64.json",
+                        default=None, help="Write the chosen threshold for the app (only when val shows no recall loss).")
+    args = parser.parse_args()
+
+    sys.exit(evaluate(args.model, args.tiny_model, args.data_dir, args.fire_threshold,
+                      [float(t) for t in args.thresholds.split(",")],
+                      args.holdout_fraction, args.seed, args.write_config))
@@ -0,0 +1,197 @@
+import argparse
+import os
+import random
+from copy import deepcopy
+
+import torch
+import torch.nn as nn
+import torch.optim as optim
+from torchvision import datasets, transforms
+
+# Stage one of the on-device cascade: a very small CNN on 64x64 inputs that runs on every
+# frame. It is trained to favour recall; MobileNetV3-Small only runs when its fire score
+# passes the (low) escalation threshold. Class order follows ImageFolder: 0 = fire, 1 = nofire.
+#
+# Checkpoints (and, in cascade_eval.py, the threshold) are chosen on a holdout carved out of
+# dataset/train, so dataset/val stays untouched for the final number.
+
+INPUT_SIZE = 64
+MEAN = [0.485, 0.456, 0.406]
+STD = [0.229, 0.224, 0.225]
+
+data_transforms = {
+    'train': transforms.Compose([
+        transforms.RandomResizedCrop(224),
+        transforms.RandomHorizontalFlip(),
+        transforms.Resize(INPUT_SIZE),
+        transforms.ToTensor(),
+        transforms.Normalize(MEAN, STD)
+    ]),
+    # Same as the Android preprocessing: resize 256, center crop 224, then down to 64.
+    'val': transforms.Compose([
+        transforms.Resize(256),
+        transforms.CenterCrop(224),
+        transforms.Resize(INPUT_SIZE),
+        transforms.ToTensor(),
+        transforms.Normalize(MEAN, STD)
+    ]),
+}
+
+
+HOLDOUT_FRACTION = 0.2
+HOLDOUT_SEED = 0
+
+
+def holdout_split(dataset, fraction=HOLDOUT_FRACTION, seed=HOLDOUT_SEED):
+    """Deterministic per-class split of an ImageFolder into (train, holdout) index lists."""
+    by_class = {}
+    for index, (_, label) in enumerate(dataset.samples):
+        by_class.setdefault(label, []).append(index)
+    rng = random.Random(seed)
+    train_idx, holdout_idx = [], []
+    for label in sorted(by_class):
+        indices = by_class[label]
+        rng.shuffle(indices)
+        cut = max(1, int(round(len(indices) * fraction)))
+        holdout_idx.extend(indices[:cut])
+        train_idx.extend(indices[cut:])
+    return sorted(train_idx), sorted(holdout_idx)
+
+
+def holdout_dataset(data_dir, transform, fraction=HOLDOUT_FRACTION, seed=HOLDOUT_SEED):
+    """The holdout part of dataset/train, loaded with the given (non-augmenting) transform."""
+    full = datasets.ImageFolder(os.path.join(data_dir, 'train'), transform)
+    _, holdout_idx = holdout_split(full, fraction, seed)
+    return torch.utils.data.Subset(full, holdout_idx), full.class_to_idx
+
+
+def conv_bn(in_ch, out_ch):
+    return nn.Sequential(
+        nn.Conv2d(in_ch, out_ch, kernel_size=3, stride=2, padding=1, bias=False),
+        nn.BatchNorm2d(out_ch),
+        nn.ReLU(inplace=True),
+    )
+
+
+class TinyFireNet(nn.Module):
+    """Four stride-2 conv layers (64 -> 4 px) and a linear head; about 1M MACs per frame."""
+
+    def __init__(self, num_classes=2):
+        super().__init__()
+        self.features = nn.Sequential(
+            conv_bn(3, 8),
+            conv_bn(8, 16),
+            conv_bn(16, 32),
+            conv_bn(32, 32),
+        )
+        self.pool = nn.AdaptiveAvgPool2d(1)
+        self.classifier = nn.Linear(32, num_classes)
+
+    def forward(self, x):
+        x = self.pool(self.features(x))
+        return self.classifier(torch.flatten(x, 1))
+
+
+def train(data_dir, output, num_epochs=30, fire_weight=2.0,
+          holdout_fraction=HOLDOUT_FRACTION, seed=HOLDOUT_SEED):
+    train_full = datasets.ImageFolder(os.path.join(data_dir, 'train'), data_transforms['train'])
+    train_idx, _ = holdout_split(train_full, holdout_fraction, seed)
+    holdout, class_to_idx = holdout_dataset(data_dir, data_transforms['val'], holdout_fraction, seed)
+    image_datasets = {'train': torch.utils.data.Subset(train_full, train_idx), 'holdout': holdout}
+    # Set num_workers=0 to avoid multiprocessing issues on macOS
+    dataloaders = {x: torch.utils.data.DataLoader(image_datasets[x], batch_size=32,
+                                                 shuffle=(x == 'train'), num_workers=0)
+                   for x in ['train', 'holdout']}
+    fire_idx = class_to_idx['fire']
+
+    device = torch.device("cuda:0" if torch.cuda.is_available() else "cpu")
+    model = TinyFireNet().to(device)
+
+    # Missing a fire costs more than an extra escalation to the full model.
+    class_weights = torch.ones(2)
+    class_weights[fire_idx] = fire_weight
+    criterion = nn.CrossEntropyLoss(weight=class_weights.to(device))
+    optimizer = optim.Adam(model.parameters(), lr=1e-3)
+    scheduler = optim.lr_scheduler.StepLR(optimizer, step_size=10, gamma=0.1)
+
+    best_model_wts = deepcopy(model.state_dict())
+    best_recall = -1.0
+    best_acc = 0.0
+    for epoch in range(num_epochs):
+        print(f'Epoch {epoch}/{num_epochs - 1}')
+        for phase in ['train', 'holdout']:
+            model.train() if phase == 'train' else model.eval()
+            running_loss = 0.0
+            corrects = 0
+            fire_total = 0
+            fire_hits = 0
+            for inputs, labels in dataloaders[phase]:
+                inputs = inputs.to(device)
+                labels = labels.to(device)
+                optimizer.zero_grad()
+                with torch.set_grad_enabled(phase == 'train'):
+                    outputs = model(inputs)
+                    loss = criterion(outputs, labels)
+                    if phase == 'train':
+                        loss.backward()
+                        optimizer.step()
+                preds = outputs.argmax(1)
+                running_loss += loss.item() * inputs.size(0)
+                corrects += (preds == labels).sum().item()
+                fire_total += (labels == fire_idx).sum().item()
+                fire_hits += ((labels == fire_idx) & (preds == fire_idx)).sum().item()
+            if phase == 'train':
+                scheduler.step()
+
+            size = len(image_datasets[phase])
+            acc = corrects / size
+            recall = fire_hits / max(1, fire_total)
+            print(f'{phase} Loss: {running_loss / size:.4f} Acc: {acc:.4f} Fire recall: {recall:.4f}')
+            if phase == 'holdout' and (recall, acc) > (best_recall, best_acc):
+                best_recall, best_acc = recall, acc
+                best_model_wts = deepcopy(model.state_dict())
+        print()
+
+    print(f'Best holdout fire recall: {best_recall:.4f} (acc {best_acc:.4f}); '
+          f'run cascade_eval.py for the number on val')
+    model.load_state_dict(best_model_wts)
+    torch.save(model.state_dict(), output)
+    print(f'Saved weights to {output}')
+
+
+def export(weights, output):
+    from torch.utils.mobile_optimizer import optimize_for_mobile
+
+    model = TinyFireNet()
+    model.load_state_dict(torch.load(weights, map_location='cpu'))
+    model.eval()
+    traced = torch.jit.trace(model, torch.zeros(1, 3, INPUT_SIZE, INPUT_SIZE))
+    optimized = optimize_for_mobile(traced)
+    os.makedirs(os.path.dirname(os.path.abspath(output)), exist_ok=True)
+    optimized._save_for_lite_interpreter(output)
+    print(os.path.abspath(output))
+
+
+if __name__ == '__main__':
+    parser = argparse.ArgumentParser(description="Train / export the stage-one tiny fire classifier.")
+    sub = parser.add_subparsers(dest='command', required=True)
+
+    p_train = sub.add_parser('train')
+    p_train.add_argument('--data-dir', default='./dataset/')
+    p_train.add_argument('--epochs', type=int, default=30)
+    p_train.add_argument('--fire-weight', type=float, default=2.0, help='Loss weight of the fire class.')
+    p_train.add_argument('--holdout-fraction', type=float, default=HOLDOUT_FRACTION,
+                         help='Share of each train class held out for checkpoint selection.')
+    p_train.add_argument('--seed', type=int, default=HOLDOUT_SEED, help='Seed of the holdout split.')
+    p_train.add_argument('--output', default='fire_stage1_tiny64.pth')
+
+    p_export = sub.add_parser('export')
+    p_export.add_argument('--weights', default='fire_stage1_tiny64.pth')
+    p_export.add_argument('--output', default='../camera2/app/src/main/assets/fire_stage1_tiny64.ptl')
+
+    args = parser.parse_args()
+    if args.command == 'train':
+        train(args.data_dir, args.output, num_epochs=args.epochs, fire_weight=args.fire_weight,
+              holdout_fraction=args.holdout_fraction, seed=args.seed)
+    else:
+        export(args.weights, args.output)
@@ -36,10 +36,14 @@ def init_schema(conn: sqlite3.Connection) -> None:
           consecutive_hits INTEGER NOT NULL,
           lat REAL,
           lon REAL,
-          image_path TEXT
+          image_path TEXT,
+          camera_id TEXT
         )
         """
     )
+    columns = {row["name"] for row in conn.execute("PRAGMA table_info(alerts)").fetchall()}
+    if "camera_id" not in columns:
+        conn.execute("ALTER TABLE alerts ADD COLUMN camera_id TEXT")
     conn.execute("CREATE INDEX IF NOT EXISTS idx_alerts_received_ms ON alerts(received_ms)")
     conn.execute("CREATE INDEX IF NOT EXISTS idx_alerts_device_id ON alerts(device_id)")
     conn.commit()
@@ -53,15 +57,16 @@ def insert_alert(
     received_ms: int,
     confidence: float,
     consecutive_hits: int,
+    camera_id: Optional[str],
     lat: Optional[float],
     lon: Optional[float],
 ) -> int:
     cur = conn.execute(
         """
-        INSERT INTO alerts(device_id, timestamp_ms, received_ms, confidence, consecutive_hits, lat, lon, image_path)
-        VALUES(?, ?, ?, ?, ?, ?, ?, NULL)
+        INSERT INTO alerts(device_id, timestamp_ms, received_ms, confidence, consecutive_hits, camera_id, lat, lon, image_path)
+        VALUES(?, ?, ?, ?, ?, ?, ?, ?, NULL)
         """,
-        (device_id, timestamp_ms, received_ms, confidence, consecutive_hits, lat, lon),
+        (device_id, timestamp_ms, received_ms, confidence, consecutive_hits, camera_id, lat, lon),
     )
     conn.commit()
     return int(cur.lastrowid)
@@ -8,6 +8,7 @@ from fastapi.responses import FileResponse
 
 from .config import Config, load_config
 from . import db as db_mod
+from . import model_updates
 from . import storage
 
 
@@ -23,6 +24,7 @@ def create_app() -> FastAPI:
     paths = storage.ensure_dirs(cfg.data_dir)
     conn = db_mod.connect(paths.db_path)
     db_mod.init_schema(conn)
+    models_path = model_updates.models_dir(cfg.data_dir)
 
     app = FastAPI(title="Sentinel AI Server", version="1.0.0")
 
@@ -43,6 +45,7 @@ def create_app() -> FastAPI:
         timestamp_ms: int = Form(...),
         confidence: float = Form(...),
         consecutive_hits: int = Form(1),
+        camera_id: Optional[str] = Form(None),
         lat: Optional[float] = Form(None),
         lon: Optional[float] = Form(None),
         image: UploadFile = File(...),
@@ -71,6 +74,7 @@ def create_app() -> FastAPI:
             received_ms=received_ms,
             confidence=float(confidence),
             consecutive_hits=int(consecutive_hits),
+            camera_id=camera_id.strip() if camera_id and camera_id.strip() else None,
             lat=lat,
             lon=lon,
         )
@@ -109,6 +113,26 @@ def create_app() -> FastAPI:
             raise HTTPException(status_code=404, detail="image not found")
         return FileResponse(path)
 
+    @app.get("/api/v1/models/latest")
+    def get_latest_model(_: None = Depends(_auth)) -> dict:
+        manifest = model_updates.latest_manifest(models_path)
+        if manifest is None:
+            raise HTTPException(status_code=404, detail="no model published")
+        return manifest
+
+    @app.get("/api/v1/models/{version}/file")
+    def get_model_file(version: int, _: None = Depends(_auth)) -> FileResponse:
+        if model_updates.load_manifest(models_path, version) is None:
+            raise HTTPException(status_code=404, detail="not found")
+        return FileResponse(model_updates.model_path(models_path, version), media_type="application/octet-stream")
+
+    @app.get("/api/v1/models/{version}/delta")
+    def get_model_delta(version: int, from_sha256: str, _: None = Depends(_auth)) -> FileResponse:
+        path = model_updates.delta_path(models_path, from_sha256.strip().lower(), version)
+        if path is None:
+            raise HTTPException(status_code=404, detail="no delta from that model")
+        return FileResponse(path, media_type="application/octet-stream")
+
     return app
 
 
@@ -0,0 +1,187 @@
+from __future__ import annotations
+
+import argparse
+import base64
+import hashlib
+import json
+import os
+import struct
+from typing import Dict, Optional
+
+# Binary delta format, mirrored by camera2/.../ModelDelta.java (big-endian):
+#   b"SDLT" u8 version u64 target_size, then ops until END:
+#   0x01 COPY u64 base_offset u32 length | 0x02 INSERT u32 length bytes | 0x00 END
+DELTA_MAGIC = b"SDLT"
+DELTA_FORMAT_VERSION = 1
+OP_END = 0
+OP_COPY = 1
+OP_INSERT = 2
+BLOCK_SIZE = 64
+MAX_OP_LENGTH = 0xFFFFFFFF
+
+
+def models_dir(data_dir: str) -> str:
+    path = os.path.join(data_dir, "models")
+    os.makedirs(path, exist_ok=True)
+    return path
+
+
+def model_path(models_path: str, version: int) -> str:
+    return os.path.join(models_path, f"{version}.ptl")
+
+
+def sha256_hex(data: bytes) -> str:
+    return hashlib.sha256(data).hexdigest()
+
+
+def load_manifest(models_path: str, version: int) -> Optional[Dict]:
+    path = os.path.join(models_path, f"{version}.json")
+    if not os.path.exists(path):
+        return None
+    with open(path, "r", encoding="utf-8") as f:
+        return json.load(f)
+
+
+def latest_manifest(models_path: str) -> Optional[Dict]:
+    path = os.path.join(models_path, "latest.json")
+    if not os.path.exists(path):
+        return None
+    with open(path, "r", encoding="utf-8") as f:
+        latest = json.load(f)
+    return load_manifest(models_path, int(latest["version"]))
+
+
+def find_manifest_by_sha256(models_path: str, sha256: str) -> Optional[Dict]:
+    for name in os.listdir(models_path):
+        if not name.endswith(".json") or name == "latest.json":
+            continue
+        with open(os.path.join(models_path, name), "r", encoding="utf-8") as f:
+            manifest = json.load(f)
+        if manifest.get("sha256") == sha256:
+            return manifest
+    return None
+
+
+def canonical_manifest(version: int, sha256: str, size: int) -> bytes:
+    """Manifest fields covered by ``manifest_signature``; mirrored by ModelVerifier.canonicalManifest."""
+    return (
+        "sentinel-model-manifest\n"
+        f"version={version}\n"
+        f"sha256={sha256}\n"
+        f"size={size}\n"
+    ).encode("utf-8")
+
+
+def _write_atomic(path: str, data: bytes) -> None:
+    tmp_path = f"{path}.tmp"
+    with open(tmp_path, "wb") as f:
+        f.write(data)
+        f.flush()
+        os.fsync(f.fileno())
+    os.replace(tmp_path, path)
+
+
+def encode_delta(base: bytes, target: bytes) -> bytes:
+    """Greedy block-matching delta: COPY runs found in base, INSERT everything else."""
+    index: Dict[bytes, int] = {}
+    for offset in range(0, len(base) - BLOCK_SIZE + 1, BLOCK_SIZE):
+        index.setdefault(base[offset:offset + BLOCK_SIZE], offset)
+
+    out = bytearray(DELTA_MAGIC)
+    out += struct.pack(">BQ", DELTA_FORMAT_VERSION, len(target))
+    pending_start = 0
+
+    def flush_insert(end: int) -> None:
+        start = pending_start
+        while start < end:
+            length = min(end - start, MAX_OP_LENGTH)
+            out.extend(struct.pack(">BI", OP_INSERT, length))
+            out.extend(target[start:start + length])
+            start += length
+
+    i = 0
+    while i + BLOCK_SIZE <= len(target):
+        base_offset = index.get(target[i:i + BLOCK_SIZE])
+        if base_offset is None:
+            i += 1
+            continue
+        length = BLOCK_SIZE
+        while (
+            i + length + BLOCK_SIZE <= len(target)
+            and base_offset + length + BLOCK_SIZE <= len(base)
+            and target[i + length:i + length + BLOCK_SIZE] == base[base_offset + length:base_offset + length + BLOCK_SIZE]
+            and length + BLOCK_SIZE <= MAX_OP_LENGTH
+        ):
+            length += BLOCK_SIZE
+        flush_insert(i)
+        out.extend(struct.pack(">BQI", OP_COPY, base_offset, length))
+        i += length
+        pending_start = i
+    flush_insert(len(target))
+    out.append(OP_END)
+    return bytes(out)
+
+
+def delta_path(models_path: str, from_sha256: str, version: int) -> Optional[str]:
+    """Returns a cached delta from the model with ``from_sha256`` to ``version``, building it if needed."""
+    base_manifest = find_manifest_by_sha256(models_path, from_sha256)
+    target_manifest = load_manifest(models_path, version)
+    if base_manifest is None or target_manifest is None:
+        return None
+    deltas_dir = os.path.join(models_path, "deltas")
+    os.makedirs(deltas_dir, exist_ok=True)
+    path = os.path.join(deltas_dir, f"{base_manifest['version']}_to_{version}.sdlt")
+    if os.path.exists(path):
+        return path
+    with open(model_path(models_path, int(base_manifest["version"])), "rb") as f:
+        base = f.read()
+    with open(model_path(models_path, version), "rb") as f:
+        target = f.read()
+    _write_atomic(path, encode_delta(base, target))
+    return path
+
+
+def publish(models_path: str, version: int, source_path: str, signing_key_path: str) -> Dict:
+    """Copies a model into the store, signs it and its manifest, and marks it as the latest version."""
+    from cryptography.hazmat.primitives import hashes, serialization
+    from cryptography.hazmat.primitives.asymmetric import ec
+
+    with open(signing_key_path, "rb") as f:
+        private_key = serialization.load_pem_private_key(f.read(), password=None)
+    if not isinstance(private_key, ec.EllipticCurvePrivateKey):
+        raise SystemExit("Signing key must be an EC (P-256) private key")
+
+    with open(source_path, "rb") as f:
+        data = f.read()
+    signature = private_key.sign(data, ec.ECDSA(hashes.SHA256()))
+    sha256 = sha256_hex(data)
+    # Nodes trust the version only through this signature; the file signature alone does not bind it.
+    manifest_signature = private_key.sign(canonical_manifest(version, sha256, len(data)), ec.ECDSA(hashes.SHA256()))
+    manifest = {
+        "version": version,
+        "sha256": sha256,
+        "size": len(data),
+        "signature": base64.b64encode(signature).decode("ascii"),
+        "manifest_signature": base64.b64encode(manifest_signature).decode("ascii"),
+    }
+    _write_atomic(model_path(models_path, version), data)
+    _write_atomic(os.path.join(models_path, f"{version}.json"), json.dumps(manifest).encode("utf-8"))
+    _write_atomic(os.path.join(models_path, "latest.json"), json.dumps({"version": version}).encode("utf-8"))
+    return manifest
+
+
+def main() -> int:
+    parser = argparse.ArgumentParser(description="Publish a signed model version for Android nodes.")
+    parser.add_argument("--data-dir", default=os.getenv("DATA_DIR", "./server/data"))
+    parser.add_argument("--version", type=int, required=True, help="Monotonically increasing model version.")
+    parser.add_argument("--model", required=True, help="Path to the exported .ptl file.")
+    parser.add_argument("--signing-key", required=True, help="PEM EC P-256 private key.")
+    args = parser.parse_args()
+
+    manifest = publish(models_dir(args.data_dir), args.version, args.model, args.signing_key)
+    print(json.dumps(manifest, indent=2))
+    return 0
+
+
+if __name__ == "__main__":
+    raise SystemExit(main())